@@ -1,19 +1,26 @@
 package comp.hacktx.backend;
 
+import comp.hacktx.backend.repositories.MeteredJpaRepositoryFactoryBean;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
 import org.springframework.boot.autoconfigure.jms.JndiConnectionFactoryAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@EnableJpaRepositories("comp.hacktx.backend.repositories")
+@EnableJpaRepositories(value = "comp.hacktx.backend.repositories",
+        repositoryFactoryBeanClass = MeteredJpaRepositoryFactoryBean.class)
 @EntityScan("comp.hacktx.backend.models")
-@SpringBootApplication
+// Redis is only connected to with state.store=redis, see RedisStateConfiguration
+@SpringBootApplication(exclude = {RedisAutoConfiguration.class, RedisRepositoriesAutoConfiguration.class})
+@EnableScheduling
 public class HackTx2020Application {
 
     public static void main(String[] args) {
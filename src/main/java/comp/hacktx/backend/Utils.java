@@ -1,9 +1,5 @@
 package comp.hacktx.backend;
 
-import comp.hacktx.backend.models.User;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-
 public class Utils {
 
     /**
@@ -13,7 +9,20 @@ public class Utils {
      * @return True if the username meets username guidelines, false otherwise.
      */
     public static boolean validateUsername(String username) {
-        return username.matches("\\w+") && username.length() >= 4;
+        // Check length
+        if (username.length() < 4) {
+            return false;
+        }
+
+        // Check each character is a word character, same as the regex \w
+        for (int i = 0; i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '_') {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
@@ -40,42 +49,93 @@ public class Utils {
     }
 
     /**
-     * @param user Username to build token for
-     * @param key  Secret key to sign
-     * @return String representation of generated JWT
+     * Validates and parses in a single pass, without allocating.
+     *
+     * @param str A String suspected to represent a non-negative int.
+     * @return The parsed value, or -1 if the String is not a non-negative integer or does not fit in an int.
      */
-    public static String buildToken(User user, String key) {
-        return Jwts.builder()
-                .setSubject(user.getUsername())
-                .signWith(Keys.hmacShaKeyFor(key.getBytes())).compact();
+    public static int parseNonNegativeInt(String str) {
+        long value = parseNonNegativeLong(str, 0, str.length());
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
     }
 
     /**
-     * @param username Username to verify with
-     * @param token    JSON web token as String
-     * @param key      Secret key
-     * @return True if the username and token combination are verified, false otherwise.
+     * Validates and parses in a single pass, without allocating.
+     *
+     * @param str A String suspected to represent a non-negative long.
+     * @return The parsed value, or -1 if the String is not a non-negative integer or does not fit in a long.
      */
-    public static boolean verifyToken(String username, String token, String key) {
-        try {
-            Jwts.parserBuilder()
-                    .requireSubject(username)
-                    .setSigningKey(key.getBytes())
-                    .build()
-                    .parseClaimsJws(token);
-        } catch (Exception e) {
-            return false;
+    public static long parseNonNegativeLong(String str) {
+        return parseNonNegativeLong(str, 0, str.length());
+    }
+
+    /**
+     * @param str      Comma separated list of non-negative integers, e.g. "78701,78702"
+     * @param maxCount Maximum number of integers allowed in the list
+     * @return The parsed integers, or null if the list is malformed, empty or longer than maxCount.
+     */
+    public static int[] parseNonNegativeIntList(String str, int maxCount) {
+        // Count entries first so the result is allocated once
+        int count = 1;
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) == ',') {
+                count++;
+            }
         }
 
-        return true;
+        if (count > maxCount) {
+            return null;
+        }
+
+        int[] values = new int[count];
+        int begin = 0;
+        for (int i = 0; i < count; i++) {
+            int end = str.indexOf(',', begin);
+            if (end < 0) {
+                end = str.length();
+            }
+
+            long value = parseNonNegativeLong(str, begin, end);
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            values[i] = (int) value;
+            begin = end + 1;
+        }
+
+        return values;
     }
 
     /**
-     * @param str A String suspected to represent a non-negative integer.
-     * @return True if the String can be parsed into a non-negative integer, false otherwise.
+     * @param str   String containing a suspected non-negative long.
+     * @param begin Index of the first character to parse, inclusive.
+     * @param end   Index of the last character to parse, exclusive.
+     * @return The parsed value, or -1 if the range is not a non-negative integer or does not fit in a long.
      */
-    public static boolean isInteger(String str) {
-        return str.matches("\\d+");
+    public static long parseNonNegativeLong(String str, int begin, int end) {
+        if (begin >= end) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = begin; i < end; i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            int digit = c - '0';
+
+            // Reject values that would overflow
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
     }
 
 }
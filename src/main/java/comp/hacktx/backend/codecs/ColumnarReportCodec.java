@@ -0,0 +1,175 @@
+package comp.hacktx.backend.codecs;
+
+import comp.hacktx.backend.models.Report;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of report lists, laid out column by column so similar values sit together.
+ * <p>
+ * After a version byte and the report count, the times, zipcodes, symptoms and ids follow as consecutive columns of
+ * unsigned LEB128 varints. Times, zipcodes and ids are stored as zigzag encoded deltas from the previous report, so
+ * reports close in time, from the same zipcode or with neighbouring ids take a byte or two per field. Symptom masks
+ * are stored as they are.
+ */
+public final class ColumnarReportCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-reports-columnar";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final int VERSION = 1;
+
+    private ColumnarReportCodec() {
+    }
+
+    /**
+     * @param reports Reports to encode
+     * @return Reports encoded column by column
+     */
+    public static byte[] encode(List<Report> reports) {
+        // Worst case is 6 bytes of header and 30 per report (10 for time and id, 5 for zipcode and symptoms)
+        Writer writer = new Writer(6 + reports.size() * 30);
+        writer.write(VERSION);
+        writer.writeVarint(reports.size());
+
+        long previous = 0;
+        for (Report report : reports) {
+            writer.writeVarint(zigzag(report.getTime() - previous));
+            previous = report.getTime();
+        }
+
+        previous = 0;
+        for (Report report : reports) {
+            writer.writeVarint(zigzag(report.getZipcode() - previous));
+            previous = report.getZipcode();
+        }
+
+        for (Report report : reports) {
+            writer.writeVarint(report.getSymptoms() & 0xFFFFFFFFL);
+        }
+
+        previous = 0;
+        for (Report report : reports) {
+            writer.writeVarint(zigzag(report.getId() - previous));
+            previous = report.getId();
+        }
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * @param data Output of {@link #encode(List)}
+     * @return Decoded reports, in their original order
+     * @throws IllegalArgumentException If data is not a valid encoding
+     */
+    public static List<Report> decode(byte[] data) {
+        Reader reader = new Reader(data);
+        if (reader.read() != VERSION) {
+            throw new IllegalArgumentException("unsupported version");
+        }
+
+        long count = reader.readVarint();
+        if (count > data.length) {
+            throw new IllegalArgumentException("truncated data");
+        }
+
+        int size = (int) count;
+        long[] times = new long[size];
+        int[] zipcodes = new int[size];
+        int[] symptoms = new int[size];
+
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(reader.readVarint());
+            times[i] = previous;
+        }
+
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(reader.readVarint());
+            zipcodes[i] = (int) previous;
+        }
+
+        for (int i = 0; i < size; i++) {
+            symptoms[i] = (int) reader.readVarint();
+        }
+
+        List<Report> reports = new ArrayList<>(size);
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(reader.readVarint());
+            reports.add(new Report(previous, times[i], zipcodes[i], symptoms[i]));
+        }
+
+        return reports;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void write(int value) {
+            if (position == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private int read() {
+            if (position == data.length) {
+                throw new IllegalArgumentException("truncated data");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+    }
+}
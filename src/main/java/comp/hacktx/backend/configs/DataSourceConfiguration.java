@@ -0,0 +1,118 @@
+package comp.hacktx.backend.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits reads and writes across two pools once a replica is configured. Read-only transactions go to the replica,
+ * everything else to the primary. Without app.datasource.replica.url the auto-configured single pool is used.
+ * <p>
+ * The pools are held by {@link Pools} rather than exposed as DataSource beans, so the routing data source is the only
+ * one Boot's schema initializer and health checks see. Registering the pools themselves makes the initializer look
+ * up the routing data source while it is still being created.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replica.url")
+public class DataSourceConfiguration {
+
+    private enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    /**
+     * @param properties Standard spring.datasource.* connection settings, the primary pool is tuned through
+     *                   spring.datasource.hikari.* and the replica pool through app.datasource.replica.hikari.*
+     * @return Both pools, closed on shutdown
+     */
+    @Bean
+    public Pools dataSourcePools(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+                                 @Value("${app.datasource.replica.url}") String url,
+                                 @Value("${app.datasource.replica.username:}") String username,
+                                 @Value("${app.datasource.replica.password:}") String password) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+        binder.bind("app.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        return new Pools(primary, replica);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(Pools pools) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, pools.getPrimary());
+        targets.put(Route.REPLICA, pools.getReplica());
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(pools.getPrimary());
+        routing.afterPropertiesSet();
+
+        // Transactions pick up a connection before their read-only flag is visible, so defer choosing a pool until
+        // the first statement runs
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Primary and replica connection pools behind the routing data source.
+     */
+    public static class Pools implements Closeable {
+
+        private final HikariDataSource primary;
+        private final HikariDataSource replica;
+
+        private Pools(HikariDataSource primary, HikariDataSource replica) {
+            this.primary = primary;
+            this.replica = replica;
+        }
+
+        public HikariDataSource getPrimary() {
+            return primary;
+        }
+
+        public HikariDataSource getReplica() {
+            return replica;
+        }
+
+        @Override
+        public void close() {
+            replica.close();
+            primary.close();
+        }
+    }
+
+    private static class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package comp.hacktx.backend.configs;
+
+import comp.hacktx.backend.state.RedisCommitRelay;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis wiring for running several instances behind a load balancer, active with state.store=redis. Redis
+ * auto-configuration is excluded so single instances never create a client, the connection is built here from the
+ * usual spring.redis.* settings instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "state.store", havingValue = "redis")
+@EnableConfigurationProperties(RedisProperties.class)
+public class RedisStateConfiguration {
+
+    /**
+     * @param properties Standard spring.redis.* connection settings
+     * @return Lettuce connection to a standalone Redis
+     */
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties properties) {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(properties.getHost(),
+                properties.getPort());
+        configuration.setDatabase(properties.getDatabase());
+        configuration.setPassword(RedisPassword.of(properties.getPassword()));
+
+        // Commands fail fast during an outage instead of holding request threads
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder client = LettuceClientConfiguration.builder();
+        if (properties.getTimeout() != null) {
+            client.commandTimeout(properties.getTimeout());
+        }
+        if (properties.isSsl()) {
+            client.useSsl();
+        }
+
+        return new LettuceConnectionFactory(configuration, client.build());
+    }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory);
+    }
+
+    /**
+     * Subscribes the commit relay to the channel other instances publish on.
+     */
+    @Bean
+    public RedisMessageListenerContainer commitListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                 RedisCommitRelay relay) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(relay, new ChannelTopic(relay.getChannel()));
+        return container;
+    }
+}
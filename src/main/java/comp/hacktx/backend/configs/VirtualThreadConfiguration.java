@@ -0,0 +1,73 @@
+package comp.hacktx.backend.configs;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every request, and MVC async work such as streamed responses, on its own virtual thread when
+ * server.threads.mode=virtual. Requests then block on JDBC without holding a platform thread, so concurrency is bounded
+ * by the connection pools rather than Tomcat's worker pool. BCrypt keeps its own bounded pool since it is CPU bound.
+ * Requires JDK 21 or later, the executor is looked up reflectively so the code still builds for Java 8.
+ * <p>
+ * A virtual thread blocking inside a synchronized block pins its carrier thread. The PostgreSQL driver guards its
+ * connections with locks rather than synchronized since 42.6, the remaining synchronized sections here (leaderboard,
+ * heatmap subscribers) do no I/O. Run with -Djdk.tracePinnedThreads=short to spot pinning in dependencies, and compare
+ * modes with the load test, e.g. mvn -Pload-test test -Dserver.threads.mode=virtual.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.threads.mode", havingValue = "virtual")
+public class VirtualThreadConfiguration implements WebMvcConfigurer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    /**
+     * @return Executor starting a new virtual thread per task
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            LOGGER.info("Serving requests on virtual threads");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("server.threads.mode=virtual requires JDK 21 or later, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    /**
+     * Replaces Tomcat's worker pool with the virtual thread executor.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = virtualThreadExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * @return Virtual thread executor in place of Boot's application task pool, for work handed off from other pools
+     */
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(virtualThreadExecutor());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(applicationTaskExecutor());
+    }
+}
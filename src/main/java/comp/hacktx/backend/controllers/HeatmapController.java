@@ -0,0 +1,70 @@
+package comp.hacktx.backend.controllers;
+
+import comp.hacktx.backend.Utils;
+import comp.hacktx.backend.services.HeatmapBroadcaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+
+@RestController
+@RequestMapping("/api")
+public class HeatmapController {
+
+    private static final int MAX_ZIPCODES = 100;
+
+    private final HeatmapBroadcaster heatmapBroadcaster;
+
+    @Autowired
+    public HeatmapController(HeatmapBroadcaster heatmapBroadcaster) {
+        this.heatmapBroadcaster = heatmapBroadcaster;
+    }
+
+    /**
+     * Subscribes to report deltas for a set of zipcodes. Each "delta" event maps zipcodes to the number of reports and
+     * symptom counts committed since the previous event.
+     *
+     * @param zipcodes Comma separated list of zipcodes to subscribe to
+     * @return ResponseEntity with an event stream, or an event stream holding a single error on failure.
+     */
+    @GetMapping(value = "/heatmap", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestParam String zipcodes) {
+        int[] zips = Utils.parseNonNegativeIntList(zipcodes, MAX_ZIPCODES);
+        if (zips == null) {
+            return error("malformed zipcodes", HttpStatus.BAD_REQUEST);
+        }
+
+        SseEmitter emitter = heatmapBroadcaster.subscribe(zips);
+        if (emitter == null) {
+            return error("too many subscribers", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * @param error  Error message
+     * @param status HTTP status to return
+     * @return ResponseEntity with an already completed event stream holding a single "error" event
+     */
+    private ResponseEntity<SseEmitter> error(String error, HttpStatus status) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Collections.singletonMap("error", error),
+                    MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+
+        return new ResponseEntity<>(emitter, status);
+    }
+}
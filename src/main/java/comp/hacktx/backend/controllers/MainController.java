@@ -1,36 +1,115 @@
 package comp.hacktx.backend.controllers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import comp.hacktx.backend.Utils;
+import comp.hacktx.backend.codecs.ColumnarReportCodec;
+import comp.hacktx.backend.events.UserRegisteredEvent;
+import comp.hacktx.backend.models.BucketSpan;
 import comp.hacktx.backend.models.Credentials;
+import comp.hacktx.backend.models.LeaderboardEntry;
 import comp.hacktx.backend.models.Report;
+import comp.hacktx.backend.models.ReportBucket;
 import comp.hacktx.backend.models.User;
 import comp.hacktx.backend.repositories.SymptomsRepository;
 import comp.hacktx.backend.repositories.UserRepository;
+import comp.hacktx.backend.services.IdGenerator;
+import comp.hacktx.backend.services.LastReportIndex;
+import comp.hacktx.backend.services.Leaderboard;
+import comp.hacktx.backend.services.PasswordHasher;
+import comp.hacktx.backend.services.RecordsCache;
+import comp.hacktx.backend.services.ReportIngestionPipeline;
+import comp.hacktx.backend.services.ReportStreamService;
+import comp.hacktx.backend.services.RollupService;
+import comp.hacktx.backend.services.SymptomAnalyticsService;
+import comp.hacktx.backend.services.TokenService;
+import comp.hacktx.backend.services.UserCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class MainController {
 
-    @Value("${security.key}")
-    private String key;
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_BATCH_ZIPCODES = 500;
+    private static final int MAX_LEADERBOARD_SIZE = 100;
 
     private final UserRepository userRepository;
     private final SymptomsRepository symptomsRepository;
+    private final RollupService rollupService;
+    private final SymptomAnalyticsService symptomAnalyticsService;
+    private final ReportStreamService reportStreamService;
+    private final RecordsCache recordsCache;
+    private final TokenService tokenService;
+    private final PasswordHasher passwordHasher;
+    private final ReportIngestionPipeline reportIngestionPipeline;
+    private final UserCache userCache;
+    private final LastReportIndex lastReportIndex;
+    private final Leaderboard leaderboard;
+    private final IdGenerator idGenerator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Executor taskExecutor;
+    private final DistributionSummary recordsResultSize;
+    private final DistributionSummary batchResultSize;
 
     @Autowired
-    public MainController(UserRepository userRepository, SymptomsRepository symptomsRepository) {
+    public MainController(UserRepository userRepository, SymptomsRepository symptomsRepository,
+                          RollupService rollupService, ReportStreamService reportStreamService,
+                          RecordsCache recordsCache, SymptomAnalyticsService symptomAnalyticsService,
+                          TokenService tokenService, PasswordHasher passwordHasher,
+                          ReportIngestionPipeline reportIngestionPipeline, UserCache userCache,
+                          LastReportIndex lastReportIndex, Leaderboard leaderboard, IdGenerator idGenerator,
+                          ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                  Executor taskExecutor) {
         this.userRepository = userRepository;
         this.symptomsRepository = symptomsRepository;
+        this.rollupService = rollupService;
+        this.symptomAnalyticsService = symptomAnalyticsService;
+        this.reportStreamService = reportStreamService;
+        this.recordsCache = recordsCache;
+        this.tokenService = tokenService;
+        this.passwordHasher = passwordHasher;
+        this.reportIngestionPipeline = reportIngestionPipeline;
+        this.userCache = userCache;
+        this.lastReportIndex = lastReportIndex;
+        this.leaderboard = leaderboard;
+        this.idGenerator = idGenerator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.taskExecutor = taskExecutor;
+        this.recordsResultSize = DistributionSummary.builder("records.result.size").tag("endpoint", "records")
+                .register(meterRegistry);
+        this.batchResultSize = DistributionSummary.builder("records.result.size").tag("endpoint", "batch")
+                .register(meterRegistry);
     }
 
     /**
@@ -38,35 +117,37 @@ public class MainController {
      * @return ResponseEntity with auth token on success, error message on failure.
      */
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Credentials credentials) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody Credentials credentials) {
         // Ensure credentials are complete
         if (!credentials.assertNonNull()) {
-            return error("invalid credentials", HttpStatus.BAD_REQUEST);
+            return completedError("invalid credentials", HttpStatus.BAD_REQUEST);
         }
 
         // Validate username
         if (!Utils.validateUsername(credentials.getUsername())) {
-            return error("invalid username", HttpStatus.BAD_REQUEST);
+            return completedError("invalid username", HttpStatus.BAD_REQUEST);
         }
 
         // Validate password
         if (!Utils.validatePassword(credentials.getPassword())) {
-            return error("invalid password", HttpStatus.BAD_REQUEST);
+            return completedError("invalid password", HttpStatus.BAD_REQUEST);
         }
 
         // Check if user exists
         if (userRepository.existsByUsername(credentials.getUsername())) {
-            return error("user already exists", HttpStatus.BAD_REQUEST);
+            return completedError("user already exists", HttpStatus.BAD_REQUEST);
         }
 
-        // Create and add user
-        String id = Long.toString(System.nanoTime());
+        // Create and add user once the password is hashed, off the hashing pool so its threads stay on BCrypt
+        long id = idGenerator.nextId();
         String username = credentials.getUsername();
-        String hashedPassword = BCrypt.hashpw(credentials.getPassword(), BCrypt.gensalt(10));
-        User user = new User(id, username, hashedPassword, 0, 0, 0);
-        userRepository.save(user);
+        return passwordHasher.hash(credentials.getPassword()).<ResponseEntity<?>>thenApplyAsync(hashedPassword -> {
+            User user = new User(id, username, hashedPassword, 0, 0, 0);
+            userRepository.save(user);
+            eventPublisher.publishEvent(new UserRegisteredEvent(username, false));
 
-        return simpleResponse("token", Utils.buildToken(user, key), HttpStatus.OK);
+            return simpleResponse("token", tokenService.buildToken(user), HttpStatus.OK);
+        }, taskExecutor).exceptionally(this::serverBusy);
     }
 
     /**
@@ -74,26 +155,30 @@ public class MainController {
      * @return ResponseEntity with auth token on success, error message on failure.
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Credentials credentials) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Credentials credentials) {
         // Ensure credentials are complete
         if (!credentials.assertNonNull()) {
-            return error("invalid credentials", HttpStatus.BAD_REQUEST);
+            return completedError("invalid credentials", HttpStatus.BAD_REQUEST);
         }
 
         // Verify user exists
-        if (!userRepository.existsByUsername(credentials.getUsername())) {
-            return error("invalid credentials", HttpStatus.BAD_REQUEST);
+        Optional<User> found = userRepository.findByUsername(credentials.getUsername());
+        if (!found.isPresent()) {
+            return completedError("invalid credentials", HttpStatus.BAD_REQUEST);
         }
 
-        User user = userRepository.findByUsername(credentials.getUsername());
+        User user = found.get();
 
         // Verify password
-        if (!BCrypt.checkpw(credentials.getPassword(), user.getPassword())) {
-            return error("invalid credentials", HttpStatus.BAD_REQUEST);
-        }
-
-        // Generate and return auth token upon success
-        return simpleResponse("token", Utils.buildToken(user, key), HttpStatus.OK);
+        return passwordHasher.check(credentials.getPassword(), user.getPassword()).<ResponseEntity<?>>thenApply(
+                matches -> {
+                    if (!matches) {
+                        return error("invalid credentials", HttpStatus.BAD_REQUEST);
+                    }
+
+                    // Generate and return auth token upon success
+                    return simpleResponse("token", tokenService.buildToken(user), HttpStatus.OK);
+                }).exceptionally(this::serverBusy);
     }
 
     /**
@@ -102,31 +187,38 @@ public class MainController {
      * @return ResponseEntity indicating failure or success of this request
      */
     @PostMapping("/reset-password")
-    public ResponseEntity<?> resetPassword(@RequestHeader Map<String, String> headers, @RequestBody Map<String,
-            String> data) {
+    public CompletableFuture<ResponseEntity<?>> resetPassword(@RequestHeader Map<String, String> headers,
+                                                              @RequestBody Map<String, String> data) {
         ResponseEntity<?> verificationResult = verifyToken(headers, data);
         if (verificationResult != null) {
-            return verificationResult;
+            return CompletableFuture.completedFuture(verificationResult);
         }
 
         if (!data.containsKey("newpassword")) {
-            return error("malformed data", HttpStatus.BAD_REQUEST);
+            return completedError("malformed data", HttpStatus.BAD_REQUEST);
         }
 
         String username = data.get("username");
         String newPassword = data.get("newpassword");
 
         if (!Utils.validatePassword(newPassword)) {
-            return error("invalid password", HttpStatus.BAD_REQUEST);
+            return completedError("invalid password", HttpStatus.BAD_REQUEST);
         }
 
-        // Update password
-        User user = userRepository.findByUsername(username);
-        String hashedPassword = BCrypt.hashpw(newPassword, BCrypt.gensalt(10));
-        user.updatePassword(hashedPassword);
-        userRepository.save(user);
+        if (!userRepository.existsByUsername(username)) {
+            return completedError("user doesn't exist", HttpStatus.BAD_REQUEST);
+        }
 
-        return simpleResponse("success", "password updated", HttpStatus.OK);
+        // Update only the password, reports may have changed the user while hashing. Like registration this runs off
+        // the hashing pool.
+        return passwordHasher.hash(newPassword).<ResponseEntity<?>>thenApplyAsync(hashedPassword -> {
+            if (!userRepository.updatePassword(username, hashedPassword)) {
+                return error("user doesn't exist", HttpStatus.BAD_REQUEST);
+            }
+            userCache.invalidate(username);
+
+            return simpleResponse("success", "password updated", HttpStatus.OK);
+        }, taskExecutor).exceptionally(this::serverBusy);
     }
 
     /**
@@ -135,66 +227,301 @@ public class MainController {
      * @return ResponseEntity indicating failure or success of this request
      */
     @PostMapping("/report")
-    public ResponseEntity<?> report(@RequestHeader Map<String, String> headers, @RequestBody Map<String, String> data) {
+    public CompletableFuture<ResponseEntity<?>> report(@RequestHeader Map<String, String> headers,
+                                                       @RequestBody Map<String, String> data) {
         ResponseEntity<?> verificationResult = verifyToken(headers, data);
         if (verificationResult != null) {
-            return verificationResult;
+            return CompletableFuture.completedFuture(verificationResult);
         }
 
         if (!data.containsKey("zipcode") || !data.containsKey("symptoms")) {
-            return error("malformed data", HttpStatus.BAD_REQUEST);
+            return completedError("malformed data", HttpStatus.BAD_REQUEST);
         }
 
         String username = data.get("username");
         String zipcode = data.get("zipcode");
         String symptoms = data.get("symptoms");
 
-        if (!Utils.isInteger(zipcode) || !Utils.isInteger(symptoms)) {
-            return error("malformed data", HttpStatus.BAD_REQUEST);
+        int zip = Utils.parseNonNegativeInt(zipcode);
+        int symptomMask = Utils.parseNonNegativeInt(symptoms);
+        if (zip < 0 || symptomMask < 0) {
+            return completedError("malformed data", HttpStatus.BAD_REQUEST);
         }
 
-        User user = userRepository.findByUsername(username);
-
-        // Get time since user made last report
-        long deltaTime = System.currentTimeMillis() - user.getLastReport();
-
-        // If user already made a report within the last 24 hours, deny and return an error.
-        if (deltaTime < 24 * 60 * 60 * 1000) {
-            String errorMessage = "Must wait 24 hours between reports. Last report: " + user.getLastReport();
-            return error(errorMessage, HttpStatus.BAD_REQUEST);
+        // Reject recent reporters from memory before queueing anything
+        long lastReport = lastReportIndex.lastReport(username);
+        if (lastReport != 0) {
+            String detail = "Last report: " + lastReport;
+            return CompletableFuture.completedFuture(
+                    error("Must wait 24 hours between reports", detail, HttpStatus.BAD_REQUEST));
         }
 
         // Build and submit report
         Report report = new Report(
-                Long.toString(System.nanoTime()),
+                idGenerator.nextId(),
                 System.currentTimeMillis(),
-                Integer.parseInt(zipcode),
-                Integer.parseInt(symptoms));
-
-        submitReport(user, report);
-
-        return simpleResponse("success", "report counted", HttpStatus.OK);
+                zip,
+                symptomMask);
+
+        // Respond once the report is durably committed, or rejected by the 24 hour rule. Completion comes from the
+        // ingestion flusher, so look up rejections on the task pool rather than holding up the next batch.
+        return submitReport(username, report).<ResponseEntity<?>>thenApplyAsync(accepted -> {
+            if (accepted) {
+                return simpleResponse("success", "report counted", HttpStatus.OK);
+            }
+
+            Optional<User> user = userRepository.findByUsername(username);
+            if (!user.isPresent()) {
+                return error("user doesn't exist", HttpStatus.BAD_REQUEST);
+            }
+
+            // User already made a report within the last 24 hours, possibly through another instance
+            lastReportIndex.record(username, user.get().getLastReport());
+            String detail = "Last report: " + user.get().getLastReport();
+            return error("Must wait 24 hours between reports", detail, HttpStatus.BAD_REQUEST);
+        }, taskExecutor).exceptionally(this::serverBusy);
     }
 
     /**
      * @param zipcode Zipcode to query for records
      * @param start   The beginning of the time window to query data from. Measured in milliseconds from epoch.
      * @param end     The ending of the time window to query data from. Measured in milliseconds from epoch.
-     * @return A ResponseEntity containing all relevant records, or containing an error if one exists.
+     * @param accept  Accept header, selecting JSON or {@value ColumnarReportCodec#MEDIA_TYPE_VALUE}
+     * @return A ResponseEntity containing all relevant records, or containing an error if one exists. Responses carry
+     * an ETag so clients can revalidate with If-None-Match, and windows that are closed to new reports may be reused
+     * by clients for a while.
      */
     @GetMapping("/records/{zipcode}/{start}/{end}")
     public ResponseEntity<?> getReports(@PathVariable String zipcode, @PathVariable String start,
-                                        @PathVariable String end) {
+                                        @PathVariable String end,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // Validate arguments
+        int zip = Utils.parseNonNegativeInt(zipcode);
+        long from = Utils.parseNonNegativeLong(start);
+        long to = Utils.parseNonNegativeLong(end);
+        if (zip < 0 || from < 0 || to < 0) {
+            return error("malformed arg", HttpStatus.BAD_REQUEST);
+        }
+
+        boolean columnar = acceptsColumnar(accept);
+        MediaType format = columnar ? ColumnarReportCodec.MEDIA_TYPE : MediaType.APPLICATION_JSON;
+        RecordsCache.CachedResponse response = recordsCache.get(zip, from, to, format.toString(), () -> {
+            List<Report> reports = symptomsRepository.findAllByTimeBeforeAndTimeAfterAndZipcode(to, from, zip);
+            byte[] body = columnar ? ColumnarReportCodec.encode(reports)
+                    : serialize(Collections.singletonMap("reports", reports));
+            return new RecordsCache.CachedResponse(body, reports.size());
+        });
+
+        // Every response counts, not only cache misses
+        recordsResultSize.record(response.getResultSize());
+
+        // Matching If-None-Match headers are answered with 304 by Spring once the ETag is set
+        return ResponseEntity.ok()
+                .contentType(format)
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(response.getEtag())
+                .cacheControl(recordsCache.cacheControl(to))
+                .body(response.getBody());
+    }
+
+    /**
+     * Queries several zipcodes in one request, either a list of zipcodes or an inclusive range of zipcodes.
+     *
+     * @param start    The beginning of the time window to query data from. Measured in milliseconds from epoch.
+     * @param end      The ending of the time window to query data from. Measured in milliseconds from epoch.
+     * @param zipcodes Comma separated list of zipcodes to query for records
+     * @param from     First zipcode of the range to query for records, if no list is given
+     * @param to       Last zipcode of the range to query for records, if no list is given
+     * @param accept   Accept header, selecting JSON grouped by zipcode or {@value ColumnarReportCodec#MEDIA_TYPE_VALUE}
+     *                 ordered by zipcode
+     * @return A ResponseEntity containing all relevant records grouped by zipcode, or containing an error if one
+     * exists.
+     */
+    @GetMapping("/records/batch/{start}/{end}")
+    public ResponseEntity<?> getReportsBatch(@PathVariable String start, @PathVariable String end,
+                                             @RequestParam(required = false) String zipcodes,
+                                             @RequestParam(required = false) String from,
+                                             @RequestParam(required = false) String to,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                     String accept) {
+        // Validate arguments
+        long startTime = Utils.parseNonNegativeLong(start);
+        long endTime = Utils.parseNonNegativeLong(end);
+        if (startTime < 0 || endTime < 0) {
+            return error("malformed arg", HttpStatus.BAD_REQUEST);
+        }
+
+        Map<Integer, List<Report>> grouped = new TreeMap<>();
+        List<Report> reports;
+
+        if (zipcodes != null) {
+            int[] zips = Utils.parseNonNegativeIntList(zipcodes, MAX_BATCH_ZIPCODES);
+            if (zips == null) {
+                return error("malformed zipcodes", HttpStatus.BAD_REQUEST);
+            }
+
+            // Every requested zipcode is present in the response, even without records
+            List<Integer> zipList = new ArrayList<>(zips.length);
+            for (int zip : zips) {
+                zipList.add(zip);
+                grouped.put(zip, new ArrayList<>());
+            }
+
+            reports = symptomsRepository.findAllByTimeBeforeAndTimeAfterAndZipcodeIn(endTime, startTime, zipList);
+        } else if (from != null && to != null) {
+            int fromZip = Utils.parseNonNegativeInt(from);
+            int toZip = Utils.parseNonNegativeInt(to);
+            if (fromZip < 0 || toZip < fromZip || toZip - fromZip >= MAX_BATCH_ZIPCODES) {
+                return error("malformed zipcodes", HttpStatus.BAD_REQUEST);
+            }
+
+            reports = symptomsRepository.findAllByTimeBeforeAndTimeAfterAndZipcodeBetween(endTime, startTime,
+                    fromZip, toZip);
+        } else {
+            return error("malformed zipcodes", HttpStatus.BAD_REQUEST);
+        }
+
+        for (Report report : reports) {
+            grouped.computeIfAbsent(report.getZipcode(), k -> new ArrayList<>()).add(report);
+        }
+        batchResultSize.record(reports.size());
+
+        if (acceptsColumnar(accept)) {
+            // Zipcodes are a column of their own, so grouping becomes ordering
+            List<Report> ordered = new ArrayList<>(reports.size());
+            grouped.values().forEach(ordered::addAll);
+            return ResponseEntity.ok()
+                    .contentType(ColumnarReportCodec.MEDIA_TYPE)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(ColumnarReportCodec.encode(ordered));
+        }
+
+        return simpleResponse("reports", grouped, HttpStatus.OK);
+    }
+
+    /**
+     * Streams records as newline delimited JSON ordered by (time, id). To resume, pass the time and id of the last
+     * record received as the cursor, formatted as "time:id".
+     *
+     * @param zipcode Zipcode to query for records
+     * @param start   The beginning of the time window to query data from. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window to query data from. Measured in milliseconds from epoch.
+     * @param after   Optional keyset cursor to resume after
+     * @param limit   Maximum number of records to return, or 0 for no limit
+     * @return A ResponseEntity streaming all relevant records, or containing an error if one exists.
+     */
+    @GetMapping("/records/{zipcode}/{start}/{end}/stream")
+    public ResponseEntity<StreamingResponseBody> streamReports(@PathVariable String zipcode,
+                                                               @PathVariable String start,
+                                                               @PathVariable String end,
+                                                               @RequestParam(required = false) String after,
+                                                               @RequestParam(defaultValue = "0") String limit) {
+        // Validate arguments
+        final int zip = Utils.parseNonNegativeInt(zipcode);
+        final long from = Utils.parseNonNegativeLong(start);
+        final long to = Utils.parseNonNegativeLong(end);
+        final int max = Utils.parseNonNegativeInt(limit);
+        if (zip < 0 || from < 0 || to < 0 || max < 0) {
+            return streamingError("malformed arg", HttpStatus.BAD_REQUEST);
+        }
+
+        long afterTime = from;
+        long afterId = 0;
+
+        // Cursor is the (time, id) of the last record the client received
+        if (after != null) {
+            int separator = after.indexOf(':');
+            afterTime = separator < 0 ? -1 : Utils.parseNonNegativeLong(after, 0, separator);
+            afterId = separator < 0 ? -1 : Utils.parseNonNegativeLong(after, separator + 1, after.length());
+            if (afterTime < 0 || afterId < 0) {
+                return streamingError("malformed cursor", HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        final long cursorTime = afterTime;
+        final long cursorId = afterId;
+
+        StreamingResponseBody body = outputStream -> reportStreamService.write(zip, from, to, cursorTime, cursorId,
+                max, outputStream);
+
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * @param zipcode Zipcode to query for aggregates
+     * @param start   The beginning of the time window to query data from. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window to query data from. Measured in milliseconds from epoch.
+     * @param span    Width of each bucket, either "hour" or "day"
+     * @return A ResponseEntity containing report counts and symptom histograms per bucket, or an error if one exists.
+     */
+    @GetMapping("/aggregates/{zipcode}/{start}/{end}")
+    public ResponseEntity<?> getAggregates(@PathVariable String zipcode, @PathVariable String start,
+                                           @PathVariable String end,
+                                           @RequestParam(defaultValue = "hour") String span) {
+        // Validate arguments
+        int zip = Utils.parseNonNegativeInt(zipcode);
+        long from = Utils.parseNonNegativeLong(start);
+        long to = Utils.parseNonNegativeLong(end);
+        if (zip < 0 || from < 0 || to < 0) {
+            return error("malformed arg", HttpStatus.BAD_REQUEST);
+        }
+
+        BucketSpan bucketSpan = BucketSpan.fromName(span);
+        if (bucketSpan == null) {
+            return error("invalid span", HttpStatus.BAD_REQUEST);
+        }
+
+        List<ReportBucket> buckets = rollupService.query(zip, bucketSpan, from, to);
+
+        return simpleResponse("buckets", buckets, HttpStatus.OK);
+    }
+
+    /**
+     * @param zipcode Zipcode to analyze symptoms for
+     * @param start   The beginning of the time window to query data from. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window to query data from. Measured in milliseconds from epoch.
+     * @return A ResponseEntity containing per symptom bit counts and co-occurrences, or an error if one exists.
+     */
+    @GetMapping("/symptoms/{zipcode}/{start}/{end}")
+    public ResponseEntity<?> getSymptoms(@PathVariable String zipcode, @PathVariable String start,
+                                         @PathVariable String end) {
+        // Validate arguments
+        int zip = Utils.parseNonNegativeInt(zipcode);
+        long from = Utils.parseNonNegativeLong(start);
+        long to = Utils.parseNonNegativeLong(end);
+        if (zip < 0 || from < 0 || to < 0) {
+            return error("malformed arg", HttpStatus.BAD_REQUEST);
+        }
+
+        return simpleResponse("symptoms", symptomAnalyticsService.summarize(zip, from, to), HttpStatus.OK);
+    }
+
+    /**
+     * @param zipcode Zipcode to analyze symptom trends for
+     * @param start   The beginning of the time window to query data from. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window to query data from. Measured in milliseconds from epoch.
+     * @param span    Width of each bucket, either "hour" or "day"
+     * @return A ResponseEntity containing the prevalence of each symptom bit per bucket and its trend, or an error if
+     * one exists.
+     */
+    @GetMapping("/symptoms/{zipcode}/{start}/{end}/trends")
+    public ResponseEntity<?> getSymptomTrends(@PathVariable String zipcode, @PathVariable String start,
+                                              @PathVariable String end,
+                                              @RequestParam(defaultValue = "day") String span) {
         // Validate arguments
-        if (!Utils.isInteger(zipcode) || !Utils.isInteger(start) || !Utils.isInteger(end)) {
+        int zip = Utils.parseNonNegativeInt(zipcode);
+        long from = Utils.parseNonNegativeLong(start);
+        long to = Utils.parseNonNegativeLong(end);
+        if (zip < 0 || from < 0 || to < 0) {
             return error("malformed arg", HttpStatus.BAD_REQUEST);
         }
 
-        List<Report> reports =
-                symptomsRepository.findAllByTimeBeforeAndTimeAfterAndZipcode(Long.parseLong(end),
-                        Long.parseLong(start), Integer.parseInt(zipcode));
+        BucketSpan bucketSpan = BucketSpan.fromName(span);
+        if (bucketSpan == null) {
+            return error("invalid span", HttpStatus.BAD_REQUEST);
+        }
 
-        return simpleResponse("reports", reports, HttpStatus.OK);
+        return simpleResponse("trends", symptomAnalyticsService.trends(zip, bucketSpan, from, to), HttpStatus.OK);
     }
 
     /**
@@ -203,12 +530,11 @@ public class MainController {
      */
     @GetMapping("/points/{username}")
     public ResponseEntity<?> getPoints(@PathVariable String username) {
-        if (!userRepository.existsByUsername(username)) {
+        User user = userCache.find(username);
+        if (user == null) {
             return error("user doesn't exist", HttpStatus.BAD_REQUEST);
         }
 
-        User user = userRepository.findByUsername(username);
-
         return simpleResponse("points", user.getPoints(), HttpStatus.OK);
     }
 
@@ -218,15 +544,42 @@ public class MainController {
      */
     @GetMapping("/streak/{username}")
     public ResponseEntity<?> getStreak(@PathVariable String username) {
-        if (!userRepository.existsByUsername(username)) {
+        User user = userCache.find(username);
+        if (user == null) {
             return error("user doesn't exist", HttpStatus.BAD_REQUEST);
         }
 
-        User user = userRepository.findByUsername(username);
-
         return simpleResponse("streak", user.getStreak(), HttpStatus.OK);
     }
 
+    /**
+     * @param n Number of users to return, at most {@value #MAX_LEADERBOARD_SIZE}
+     * @return ResponseEntity containing the n highest ranked users, best first, or an error on failure.
+     */
+    @GetMapping("/leaderboard/top/{n}")
+    public ResponseEntity<?> getLeaderboard(@PathVariable String n) {
+        int count = Utils.parseNonNegativeInt(n);
+        if (count < 1 || count > MAX_LEADERBOARD_SIZE) {
+            return error("malformed arg", HttpStatus.BAD_REQUEST);
+        }
+
+        return simpleResponse("leaderboard", leaderboard.top(count), HttpStatus.OK);
+    }
+
+    /**
+     * @param username User's username to retrieve rank for
+     * @return ResponseEntity indicating user's rank and points or an error on failure.
+     */
+    @GetMapping("/leaderboard/rank/{username}")
+    public ResponseEntity<?> getRank(@PathVariable String username) {
+        LeaderboardEntry entry = leaderboard.rank(username);
+        if (entry == null) {
+            return error("user doesn't exist", HttpStatus.BAD_REQUEST);
+        }
+
+        return simpleResponse("rank", entry, HttpStatus.OK);
+    }
+
     /**
      * @param headers All headers present in request
      * @param body    Full request body
@@ -248,7 +601,7 @@ public class MainController {
         String token = headers.get("authorization").substring(7);
 
         // Verify JWT token
-        if (!Utils.verifyToken(body.get("username"), token, key)) {
+        if (!tokenService.verifyToken(body.get("username"), token)) {
             return error("bad token", HttpStatus.BAD_REQUEST);
         }
 
@@ -266,39 +619,128 @@ public class MainController {
         return new ResponseEntity<>(Collections.singletonMap(title, data), status);
     }
 
+    /**
+     * @param accept Accept header of a records request, possibly absent
+     * @return Whether the client prefers the columnar encoding over JSON
+     */
+    private boolean acceptsColumnar(String accept) {
+        if (accept == null) {
+            return false;
+        }
+
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+
+        // First acceptable of the two wins, wildcards fall back to JSON
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.includes(ColumnarReportCodec.MEDIA_TYPE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param body Response body to serialize
+     * @return Body serialized as JSON
+     */
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * @param error  Error message
      * @param status HTTP status to return
      * @return ResponseEntity representing error along with status code
      */
     private ResponseEntity<?> error(String error, HttpStatus status) {
+        countError(error);
         return simpleResponse("error", error, status);
     }
 
     /**
-     * @param user   The user who is submitting the report
-     * @param report The incoming symptoms report from the user
+     * @param reason Fixed part of the error message, used to count errors by reason
+     * @param detail Request specific part of the error message
+     * @param status HTTP status to return
+     * @return ResponseEntity representing error along with status code
+     */
+    private ResponseEntity<?> error(String reason, String detail, HttpStatus status) {
+        countError(reason);
+        return simpleResponse("error", reason + ". " + detail, status);
+    }
+
+    /**
+     * @param reason Fixed error message, never containing request specific data
      */
-    private void submitReport(User user, Report report) {
-        // Save report to database
-        symptomsRepository.save(report);
+    private void countError(String reason) {
+        meterRegistry.counter("api.errors", "reason", reason).increment();
+    }
 
-        final int pointsReward = 100;
+    /**
+     * @param error  Error message
+     * @param status HTTP status to return
+     * @return Already completed future of {@link #error(String, HttpStatus)}, for asynchronous endpoints
+     */
+    private CompletableFuture<ResponseEntity<?>> completedError(String error, HttpStatus status) {
+        return CompletableFuture.completedFuture(error(error, status));
+    }
 
-        // Reward user
-        user.givePoints(pointsReward);
+    /**
+     * @param throwable Failure of an asynchronous stage
+     * @return ResponseEntity telling the client to back off if hashing or ingestion is saturated.
+     */
+    private ResponseEntity<?> serverBusy(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
 
-        // If report was made less than 48 hours from previous report or is first report, then the user has submitted a
-        // report on two consecutive days and therefore their streak is incremented. Otherwise, reset streak.
-        if (user.getLastReport() == 0 || System.currentTimeMillis() - user.getLastReport() <= 2 * 24 * 60 * 60 * 1000) {
-            user.incrementStreak();
-        } else {
-            user.resetStreak();
+        // Work queue is full, reject instead of waiting
+        if (cause instanceof RejectedExecutionException) {
+            return error("server busy", HttpStatus.SERVICE_UNAVAILABLE);
         }
 
-        // Update user's last report submission time
-        user.registerReport();
-        userRepository.save(user);
+        // Let anything else surface as it would from a synchronous handler
+        throw throwable instanceof CompletionException ? (CompletionException) throwable
+                : new CompletionException(throwable);
+    }
+
+    /**
+     * @param error  Error message
+     * @param status HTTP status to return
+     * @return Streaming equivalent of {@link #error(String, HttpStatus)}, for endpoints that stream their body
+     */
+    private ResponseEntity<StreamingResponseBody> streamingError(String error, HttpStatus status) {
+        countError(error);
+        Map<String, String> body = Collections.singletonMap("error", error);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> objectMapper.writeValue(outputStream, body));
+    }
+
+    /**
+     * Points, streak and last report time are updated in the same statement that enforces the 24 hour rule, so
+     * concurrent reports from one user can't both be counted.
+     *
+     * @param username The user who is submitting the report
+     * @param report   The incoming symptoms report from the user
+     * @return Future completing with true once the report and user update are committed, or false if the user
+     * already reported within the last 24 hours.
+     */
+    private CompletableFuture<Boolean> submitReport(String username, Report report) {
+        // Queue report and user update for the next batch write
+        return reportIngestionPipeline.submit(username, report);
     }
 
 }
@@ -0,0 +1,56 @@
+package comp.hacktx.backend.events;
+
+import comp.hacktx.backend.models.Report;
+
+import java.util.List;
+
+/**
+ * Published after a batch of reports and the matching user updates have been committed to the database. Batches
+ * committed by other instances are republished locally as remote events, so per-instance state stays in step while
+ * durable side effects only happen once, on the committing instance.
+ */
+public class ReportsCommittedEvent {
+
+    private final List<Report> reports;
+    private final List<String> usernames;
+    private final long time;
+    private final boolean remote;
+
+    /**
+     * @param reports   Reports that were committed
+     * @param usernames Username of the reporter of each report, in the same order
+     * @param time      Time stored as the last report of each reporter, measured in milliseconds from epoch
+     */
+    public ReportsCommittedEvent(List<Report> reports, List<String> usernames, long time) {
+        this(reports, usernames, time, false);
+    }
+
+    /**
+     * @param reports   Reports that were committed
+     * @param usernames Username of the reporter of each report, in the same order
+     * @param time      Time stored as the last report of each reporter, measured in milliseconds from epoch
+     * @param remote    Whether the batch was committed by another instance
+     */
+    public ReportsCommittedEvent(List<Report> reports, List<String> usernames, long time, boolean remote) {
+        this.reports = reports;
+        this.usernames = usernames;
+        this.time = time;
+        this.remote = remote;
+    }
+
+    public List<Report> getReports() {
+        return reports;
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+}
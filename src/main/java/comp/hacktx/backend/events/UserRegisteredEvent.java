@@ -0,0 +1,27 @@
+package comp.hacktx.backend.events;
+
+/**
+ * Published after a new user has been committed to the database, locally or, as a remote event, by another instance.
+ */
+public class UserRegisteredEvent {
+
+    private final String username;
+    private final boolean remote;
+
+    /**
+     * @param username Username of the new user
+     * @param remote   Whether the user was registered through another instance
+     */
+    public UserRegisteredEvent(String username, boolean remote) {
+        this.username = username;
+        this.remote = remote;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+}
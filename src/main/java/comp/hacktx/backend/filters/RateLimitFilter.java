@@ -0,0 +1,147 @@
+package comp.hacktx.backend.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import comp.hacktx.backend.services.TokenService;
+import comp.hacktx.backend.state.SharedStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Rejects excess API requests before they reach any controller, so throttled calls cost no database query or BCrypt
+ * work. Requests are limited per remote address, with a stricter limit on credential endpoints. Authenticated requests
+ * are also limited per user, keyed by the subject of a verified token so nobody can spend another user's allowance.
+ * Public lookups of a user are limited per address and looked up user, so one client can't lock everyone else out of
+ * a user's points.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenBucketRateLimiter addressLimiter;
+    private final TokenBucketRateLimiter credentialsLimiter;
+    private final TokenBucketRateLimiter userLimiter;
+    private final TokenBucketRateLimiter lookupLimiter;
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+    private final Counter addressRejections;
+    private final Counter credentialsRejections;
+    private final Counter userRejections;
+    private final Counter lookupRejections;
+
+    @Autowired
+    public RateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry, SharedStateStore store,
+                           TokenService tokenService,
+                           @Value("${ratelimit.address.rate:20}") double addressRate,
+                           @Value("${ratelimit.address.burst:40}") int addressBurst,
+                           @Value("${ratelimit.credentials.rate:1}") double credentialsRate,
+                           @Value("${ratelimit.credentials.burst:5}") int credentialsBurst,
+                           @Value("${ratelimit.user.rate:2}") double userRate,
+                           @Value("${ratelimit.user.burst:10}") int userBurst,
+                           @Value("${ratelimit.lookup.rate:10}") double lookupRate,
+                           @Value("${ratelimit.lookup.burst:20}") int lookupBurst) {
+        this.objectMapper = objectMapper;
+        this.tokenService = tokenService;
+        Counter storeFailures = meterRegistry.counter("state.store.failures", "use", "ratelimit");
+        this.addressLimiter = new TokenBucketRateLimiter(store, "address", addressRate, addressBurst, storeFailures);
+        this.credentialsLimiter = new TokenBucketRateLimiter(store, "credentials", credentialsRate, credentialsBurst,
+                storeFailures);
+        this.userLimiter = new TokenBucketRateLimiter(store, "user", userRate, userBurst, storeFailures);
+        this.lookupLimiter = new TokenBucketRateLimiter(store, "lookup", lookupRate, lookupBurst, storeFailures);
+        this.addressRejections = meterRegistry.counter("ratelimit.rejected", "limit", "address");
+        this.credentialsRejections = meterRegistry.counter("ratelimit.rejected", "limit", "credentials");
+        this.userRejections = meterRegistry.counter("ratelimit.rejected", "limit", "user");
+        this.lookupRejections = meterRegistry.counter("ratelimit.rejected", "limit", "lookup");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Client address as resolved by server.forward-headers-strategy when behind a load balancer
+        String address = request.getRemoteAddr();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        if (!addressLimiter.tryAcquire(address)) {
+            addressRejections.increment();
+            reject(response);
+            return;
+        }
+
+        if (isCredentialsPath(path) && !credentialsLimiter.tryAcquire(address)) {
+            credentialsRejections.increment();
+            reject(response);
+            return;
+        }
+
+        // Lookups are public, so they must not touch the buckets of the user's own requests, and are charged to the
+        // caller rather than the user looked up
+        String looked = lookupUsername(path);
+        if (looked != null && !lookupLimiter.tryAcquire(address + "/" + looked)) {
+            lookupRejections.increment();
+            reject(response);
+            return;
+        }
+
+        // Invalid tokens are left for the controller to reject, they have no user to charge
+        String subject = tokenSubject(request);
+        if (subject != null && !userLimiter.tryAcquire(subject)) {
+            userRejections.increment();
+            reject(response);
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private static boolean isCredentialsPath(String path) {
+        return path.equals("/api/login") || path.equals("/api/register") || path.equals("/api/reset-password");
+    }
+
+    /**
+     * @param path Request path without context path
+     * @return Username of /api/points/{username} and /api/streak/{username}, or null for other paths.
+     */
+    private static String lookupUsername(String path) {
+        if (path.startsWith("/api/points/")) {
+            return path.substring("/api/points/".length());
+        }
+        if (path.startsWith("/api/streak/")) {
+            return path.substring("/api/streak/".length());
+        }
+        return null;
+    }
+
+    /**
+     * @param request Incoming request
+     * @return Subject of the bearer token, or null if there is no valid token.
+     */
+    private String tokenSubject(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+
+        // Verified tokens are cached, so the controller's own check right after is a cache hit
+        return tokenService.verifiedSubject(authorization.substring(BEARER_PREFIX.length()));
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Collections.singletonMap("error", "rate limited"));
+    }
+}
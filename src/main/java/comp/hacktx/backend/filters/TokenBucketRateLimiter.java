@@ -0,0 +1,72 @@
+package comp.hacktx.backend.filters;
+
+import comp.hacktx.backend.state.SharedStateStore;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.dao.DataAccessException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets, one per key, kept in the shared state store so every instance enforces the same limit. Each bucket is
+ * a single theoretical arrival time (the generic cell rate algorithm), updated with compare-and-set, so acquiring never
+ * blocks and keys only contend with themselves. Buckets expire once full again, since they then behave the same as
+ * untracked keys. If the store can't be reached requests are let through, an outage of shared state must not take the
+ * API down with it.
+ */
+public class TokenBucketRateLimiter {
+
+    private final SharedStateStore store;
+    private final String prefix;
+    private final long emissionInterval;
+    private final long tolerance;
+    private final Counter storeFailures;
+
+    /**
+     * @param store         Store holding the buckets
+     * @param name          Name of this limit, keeping its keys apart from other limits
+     * @param ratePerSecond Sustained number of requests allowed per second
+     * @param burst         Number of requests allowed back to back
+     * @param storeFailures Incremented whenever the store fails and a request is let through unchecked
+     */
+    public TokenBucketRateLimiter(SharedStateStore store, String name, double ratePerSecond, int burst,
+                                  Counter storeFailures) {
+        this.store = store;
+        this.storeFailures = storeFailures;
+        this.prefix = "ratelimit:" + name + ":";
+        this.emissionInterval = (long) (TimeUnit.SECONDS.toMicros(1) / ratePerSecond);
+        this.tolerance = emissionInterval * (burst - 1);
+    }
+
+    /**
+     * @param key Identity to rate limit, e.g. a username or remote address
+     * @return True if the request is allowed, false if the key is over its limit.
+     */
+    public boolean tryAcquire(String key) {
+        try {
+            return acquire(prefix + key);
+        } catch (DataAccessException e) {
+            storeFailures.increment();
+            return true;
+        }
+    }
+
+    private boolean acquire(String bucket) {
+        while (true) {
+            // Wall clock time, as buckets may be shared with other instances
+            long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            long arrival = store.get(bucket);
+
+            // An idle bucket is full, it doesn't bank tokens past its burst
+            long start = Math.max(arrival, now);
+            if (start - now > tolerance) {
+                return false;
+            }
+
+            long next = start + emissionInterval;
+            long ttlMillis = TimeUnit.MICROSECONDS.toMillis(next - now) + 1;
+            if (store.compareAndSet(bucket, arrival, next, ttlMillis)) {
+                return true;
+            }
+        }
+    }
+}
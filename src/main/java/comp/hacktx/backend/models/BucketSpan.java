@@ -0,0 +1,39 @@
+package comp.hacktx.backend.models;
+
+public enum BucketSpan {
+
+    HOUR(60 * 60 * 1000L),
+    DAY(24 * 60 * 60 * 1000L);
+
+    private final long millis;
+
+    BucketSpan(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * @param name Case-insensitive span name, e.g. "hour" or "day"
+     * @return The matching span, or null if no span has that name.
+     */
+    public static BucketSpan fromName(String name) {
+        for (BucketSpan span : values()) {
+            if (span.name().equalsIgnoreCase(name)) {
+                return span;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param time Milliseconds from epoch
+     * @return Start of the bucket containing the given time.
+     */
+    public long floor(long time) {
+        return time - Math.floorMod(time, millis);
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+}
@@ -0,0 +1,29 @@
+package comp.hacktx.backend.models;
+
+/**
+ * A user's position on the leaderboard. Users with equal points share a rank.
+ */
+public class LeaderboardEntry {
+
+    private final int rank;
+    private final String username;
+    private final int points;
+
+    public LeaderboardEntry(int rank, String username, int points) {
+        this.rank = rank;
+        this.username = username;
+        this.points = points;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+}
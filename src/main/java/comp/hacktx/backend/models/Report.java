@@ -1,15 +1,19 @@
 package comp.hacktx.backend.models;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = @Index(name = "reports_zipcode_time_idx", columnList = "zipcode,time"))
 public class Report {
 
     @Id
-    private String id;
+    private long id;
     private long time;
     private int zipcode;
     private int symptoms;
@@ -18,14 +22,16 @@ public class Report {
 
     }
 
-    public Report(String id, long time, int zipcode, int symptoms) {
+    public Report(long id, long time, int zipcode, int symptoms) {
         this.id = id;
         this.time = time;
         this.zipcode = zipcode;
         this.symptoms = symptoms;
     }
 
-    public String getId() {
+    // Ids use all 64 bits, past what JavaScript numbers hold exactly
+    @JsonSerialize(using = ToStringSerializer.class)
+    public long getId() {
         return id;
     }
 
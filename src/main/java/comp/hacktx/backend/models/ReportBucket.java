@@ -0,0 +1,105 @@
+package comp.hacktx.backend.models;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Pre-aggregated view of all reports for one zipcode within one hour or day. Holds the number of reports and how many
+ * of them had each symptom bit set.
+ */
+@Entity
+@Table(name = "report_buckets", indexes = @Index(name = "report_buckets_zipcode_span_start_idx",
+        columnList = "zipcode,span,bucketStart"))
+public class ReportBucket {
+
+    @Id
+    private String id;
+    private int zipcode;
+    private long span;
+    private long bucketStart;
+    private int reportCount;
+
+    @Column(length = 512)
+    @Convert(converter = SymptomHistogramConverter.class)
+    private int[] symptomCounts;
+
+    public ReportBucket() {
+
+    }
+
+    public ReportBucket(int zipcode, BucketSpan span, long bucketStart) {
+        this.id = idFor(zipcode, span, bucketStart);
+        this.zipcode = zipcode;
+        this.span = span.getMillis();
+        this.bucketStart = bucketStart;
+        this.reportCount = 0;
+        this.symptomCounts = new int[Integer.SIZE];
+    }
+
+    /**
+     * @param zipcode     Zipcode of bucket
+     * @param span        Width of bucket
+     * @param bucketStart Start of bucket, aligned to span
+     * @return Deterministic primary key for the bucket
+     */
+    public static String idFor(int zipcode, BucketSpan span, long bucketStart) {
+        return zipcode + ":" + span.getMillis() + ":" + bucketStart;
+    }
+
+    /**
+     * @param symptoms Symptom bitmask of a single report
+     */
+    public void add(int symptoms) {
+        add(symptoms, 1);
+    }
+
+    /**
+     * @param symptoms Symptom bitmask shared by a number of reports
+     * @param count    Number of reports with that bitmask
+     */
+    public void add(int symptoms, int count) {
+        reportCount += count;
+        countSymptoms(symptomCounts, symptoms, count);
+    }
+
+    /**
+     * @param symptomCounts Per bit counts to add to, indexed by bit
+     * @param symptoms      Symptom bitmask shared by a number of reports
+     * @param count         Number of reports with that bitmask
+     */
+    static void countSymptoms(int[] symptomCounts, int symptoms, int count) {
+        // Visit only the set bits, clearing the lowest one each round
+        while (symptoms != 0) {
+            symptomCounts[Integer.numberOfTrailingZeros(symptoms)] += count;
+            symptoms &= symptoms - 1;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getZipcode() {
+        return zipcode;
+    }
+
+    public long getSpan() {
+        return span;
+    }
+
+    public long getBucketStart() {
+        return bucketStart;
+    }
+
+    public int getReportCount() {
+        return reportCount;
+    }
+
+    public int[] getSymptomCounts() {
+        return symptomCounts;
+    }
+}
@@ -0,0 +1,49 @@
+package comp.hacktx.backend.models;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a per-symptom-bit histogram as a comma separated list of counts, trimmed after the highest non-zero bit.
+ */
+@Converter
+public class SymptomHistogramConverter implements AttributeConverter<int[], String> {
+
+    @Override
+    public String convertToDatabaseColumn(int[] counts) {
+        if (counts == null) {
+            return "";
+        }
+
+        // Find highest bit with a non-zero count
+        int length = counts.length;
+        while (length > 0 && counts[length - 1] == 0) {
+            length--;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(counts[i]);
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public int[] convertToEntityAttribute(String column) {
+        int[] counts = new int[Integer.SIZE];
+        if (column == null || column.isEmpty()) {
+            return counts;
+        }
+
+        String[] parts = column.split(",");
+        for (int i = 0; i < parts.length && i < counts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i]);
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,35 @@
+package comp.hacktx.backend.models;
+
+/**
+ * How often each symptom bit was reported in a window, and how often each pair of bits was reported together. Arrays
+ * are indexed by bit and cover bits up to the highest one reported.
+ */
+public class SymptomSummary {
+
+    private final long reportCount;
+    private final long[] symptomCounts;
+    private final long[][] cooccurrences;
+
+    /**
+     * @param reportCount   Number of reports in the window
+     * @param symptomCounts Number of reports with each bit set
+     * @param cooccurrences Number of reports with both bits set, symmetric with symptom counts on the diagonal
+     */
+    public SymptomSummary(long reportCount, long[] symptomCounts, long[][] cooccurrences) {
+        this.reportCount = reportCount;
+        this.symptomCounts = symptomCounts;
+        this.cooccurrences = cooccurrences;
+    }
+
+    public long getReportCount() {
+        return reportCount;
+    }
+
+    public long[] getSymptomCounts() {
+        return symptomCounts;
+    }
+
+    public long[][] getCooccurrences() {
+        return cooccurrences;
+    }
+}
@@ -0,0 +1,49 @@
+package comp.hacktx.backend.models;
+
+/**
+ * Share of reports with each symptom bit set per bucket, along with the direction each share is heading. Arrays are
+ * indexed by bit and cover bits up to the highest one reported.
+ */
+public class SymptomTrends {
+
+    private final long span;
+    private final long[] bucketStarts;
+    private final int[] reportCounts;
+    private final double[][] prevalence;
+    private final double[] slopes;
+
+    /**
+     * @param span         Width of each bucket, in milliseconds
+     * @param bucketStarts Start of each non-empty bucket, measured in milliseconds from epoch
+     * @param reportCounts Number of reports in each bucket
+     * @param prevalence   Fraction of each bucket's reports with the bit set, by bit then bucket
+     * @param slopes       Least squares change in prevalence per bucket width, by bit
+     */
+    public SymptomTrends(long span, long[] bucketStarts, int[] reportCounts, double[][] prevalence, double[] slopes) {
+        this.span = span;
+        this.bucketStarts = bucketStarts;
+        this.reportCounts = reportCounts;
+        this.prevalence = prevalence;
+        this.slopes = slopes;
+    }
+
+    public long getSpan() {
+        return span;
+    }
+
+    public long[] getBucketStarts() {
+        return bucketStarts;
+    }
+
+    public int[] getReportCounts() {
+        return reportCounts;
+    }
+
+    public double[][] getPrevalence() {
+        return prevalence;
+    }
+
+    public double[] getSlopes() {
+        return slopes;
+    }
+}
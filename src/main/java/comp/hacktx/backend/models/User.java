@@ -1,15 +1,34 @@
 package comp.hacktx.backend.models;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "users_username_idx", columnList = "username", unique = true))
 public class User {
 
+    /**
+     * Points rewarded for each accepted report.
+     */
+    public static final int REPORT_REWARD = 100;
+
+    /**
+     * Minimum time between two reports of the same user, in milliseconds.
+     */
+    public static final long REPORT_INTERVAL = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Maximum time between two reports for them to count towards a streak, in milliseconds.
+     */
+    public static final long STREAK_WINDOW = 2 * 24 * 60 * 60 * 1000L;
+
     @Id
-    private String id;
+    private long id;
     private String username;
     private String password;
     private long lastReport;
@@ -20,7 +39,7 @@ public class User {
 
     }
 
-    public User(String id, String username, String password, long lastReport, int points, int streak) {
+    public User(long id, String username, String password, long lastReport, int points, int streak) {
         this.id = id;
         this.username = username;
         this.password = password;
@@ -49,7 +68,9 @@ public class User {
         this.lastReport = System.currentTimeMillis();
     }
 
-    public String getId() {
+    // Ids use all 64 bits, past what JavaScript numbers hold exactly
+    @JsonSerialize(using = ToStringSerializer.class)
+    public long getId() {
         return id;
     }
 
@@ -0,0 +1,36 @@
+package comp.hacktx.backend.models;
+
+/**
+ * Number of new reports and how many of them had each symptom bit set, for one zipcode since the last update.
+ */
+public class ZipcodeDelta {
+
+    private int reportCount;
+    private final int[] symptomCounts = new int[Integer.SIZE];
+
+    /**
+     * @param symptoms Symptom bitmask of a single report
+     */
+    public void add(int symptoms) {
+        reportCount++;
+        ReportBucket.countSymptoms(symptomCounts, symptoms, 1);
+    }
+
+    /**
+     * @param other Delta to fold into this one
+     */
+    public void merge(ZipcodeDelta other) {
+        reportCount += other.reportCount;
+        for (int i = 0; i < symptomCounts.length; i++) {
+            symptomCounts[i] += other.symptomCounts[i];
+        }
+    }
+
+    public int getReportCount() {
+        return reportCount;
+    }
+
+    public int[] getSymptomCounts() {
+        return symptomCounts;
+    }
+}
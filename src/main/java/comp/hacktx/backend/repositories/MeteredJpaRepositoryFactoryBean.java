@@ -0,0 +1,71 @@
+package comp.hacktx.backend.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates JPA repositories whose every method call is timed as repository.invocations, tagged with the repository,
+ * the method and whether it succeeded.
+ */
+public class MeteredJpaRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
+        extends JpaRepositoryFactoryBean<T, S, ID> {
+
+    private MeterRegistry meterRegistry;
+
+    public MeteredJpaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        RepositoryFactorySupport factory = super.createRepositoryFactory(entityManager);
+        factory.addRepositoryProxyPostProcessor((proxyFactory, information) -> proxyFactory.addAdvice(
+                new TimingInterceptor(meterRegistry, information.getRepositoryInterface().getSimpleName())));
+        return factory;
+    }
+
+    private static class TimingInterceptor implements MethodInterceptor {
+
+        private final MeterRegistry meterRegistry;
+        private final String repository;
+
+        private TimingInterceptor(MeterRegistry meterRegistry, String repository) {
+            this.meterRegistry = meterRegistry;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+            String outcome = "success";
+
+            try {
+                return invocation.proceed();
+            } catch (Throwable t) {
+                outcome = "error";
+                throw t;
+            } finally {
+                Timer.builder("repository.invocations")
+                        .tag("repository", repository)
+                        .tag("method", invocation.getMethod().getName())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package comp.hacktx.backend.repositories;
+
+import comp.hacktx.backend.models.ReportBucket;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReportBucketRepository extends CrudRepository<ReportBucket, String>, ReportBucketRepositoryCustom {
+
+    // Locked in id order, the same order every writer uses, so writers touching overlapping buckets can't deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReportBucket> findAllByIdInOrderByIdAsc(Collection<String> ids);
+
+    @Transactional(readOnly = true)
+    List<ReportBucket> findAllByZipcodeAndSpanAndBucketStartBetweenOrderByBucketStart(int zipcode, long span,
+                                                                                     long from, long to);
+}
@@ -0,0 +1,25 @@
+package comp.hacktx.backend.repositories;
+
+import comp.hacktx.backend.models.ReportBucket;
+
+import java.util.List;
+
+public interface ReportBucketRepositoryCustom {
+
+    /**
+     * Creates empty buckets for every id not in the table yet and leaves existing buckets alone, so writers racing to
+     * create the same bucket never fail on its primary key. Ids are inserted in sorted order so racing writers wait
+     * on each other instead of deadlocking.
+     *
+     * @param buckets Empty buckets to create
+     */
+    void insertMissing(List<ReportBucket> buckets);
+
+    /**
+     * Replaces every bucket starting at or after the given time with buckets recomputed from the reports table.
+     *
+     * @param from Start of the first bucket to recompute, aligned to every span. Measured in milliseconds from epoch.
+     * @return Number of buckets written.
+     */
+    int recomputeFrom(long from);
+}
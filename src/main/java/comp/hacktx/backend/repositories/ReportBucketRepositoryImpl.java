@@ -0,0 +1,152 @@
+package comp.hacktx.backend.repositories;
+
+import comp.hacktx.backend.models.BucketSpan;
+import comp.hacktx.backend.models.ReportBucket;
+import comp.hacktx.backend.models.SymptomHistogramConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ReportBucketRepositoryImpl implements ReportBucketRepositoryCustom {
+
+    private static final String INSERT = "insert into report_buckets "
+            + "(id, zipcode, span, bucket_start, report_count, symptom_counts) values (?, ?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SymptomHistogramConverter converter = new SymptomHistogramConverter();
+
+    // Resolved on first use, the database doesn't change while running
+    private volatile Boolean postgres;
+
+    @Autowired
+    public ReportBucketRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertMissing(List<ReportBucket> buckets) {
+        List<ReportBucket> sorted = new ArrayList<>(buckets);
+        sorted.sort(Comparator.comparing(ReportBucket::getId));
+
+        if (isPostgres()) {
+            // A failed statement would abort the whole transaction on PostgreSQL, so let it skip conflicts itself
+            insertAll(INSERT + " on conflict (id) do nothing", sorted);
+            return;
+        }
+
+        for (ReportBucket bucket : sorted) {
+            try {
+                jdbcTemplate.update(INSERT, bucket.getId(), bucket.getZipcode(), bucket.getSpan(),
+                        bucket.getBucketStart(), bucket.getReportCount(),
+                        converter.convertToDatabaseColumn(bucket.getSymptomCounts()));
+            } catch (DuplicateKeyException e) {
+                // Created by another writer in the meantime
+            }
+        }
+    }
+
+    @Override
+    public int recomputeFrom(long from) {
+        jdbcTemplate.update("delete from report_buckets where bucket_start >= ?", from);
+
+        int written = 0;
+        for (BucketSpan span : BucketSpan.values()) {
+            // Same expression in select and group by, so inline the span rather than binding it twice
+            String bucketStart = "time - mod(time, " + span.getMillis() + ")";
+            RecomputeHandler handler = new RecomputeHandler(span);
+            jdbcTemplate.query("select zipcode, " + bucketStart + " as bucket_start, symptoms, count(*) "
+                    + "from reports where time >= ? group by zipcode, " + bucketStart + ", symptoms "
+                    + "order by zipcode, bucket_start", handler, from);
+            written += handler.finish();
+        }
+
+        return written;
+    }
+
+    private void insertAll(String sql, List<ReportBucket> buckets) {
+        jdbcTemplate.batchUpdate(sql, buckets, buckets.size(), (statement, bucket) -> {
+            statement.setString(1, bucket.getId());
+            statement.setInt(2, bucket.getZipcode());
+            statement.setLong(3, bucket.getSpan());
+            statement.setLong(4, bucket.getBucketStart());
+            statement.setInt(5, bucket.getReportCount());
+            statement.setString(6, converter.convertToDatabaseColumn(bucket.getSymptomCounts()));
+        });
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    /**
+     * Folds rows of (zipcode, bucket start, symptoms, count), ordered by zipcode and bucket start, into buckets and
+     * writes them in batches as each one is complete.
+     */
+    private class RecomputeHandler implements RowCallbackHandler {
+
+        private final BucketSpan span;
+        private final List<ReportBucket> batch = new ArrayList<>(BATCH_SIZE);
+        private ReportBucket current;
+        private int written;
+
+        private RecomputeHandler(BucketSpan span) {
+            this.span = span;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            int zipcode = resultSet.getInt(1);
+            long bucketStart = resultSet.getLong(2);
+
+            if (current == null || current.getZipcode() != zipcode || current.getBucketStart() != bucketStart) {
+                flush();
+                current = new ReportBucket(zipcode, span, bucketStart);
+            }
+            current.add(resultSet.getInt(3), resultSet.getInt(4));
+        }
+
+        /**
+         * @return Number of buckets written in total
+         */
+        private int finish() {
+            flush();
+            if (!batch.isEmpty()) {
+                insertAll(INSERT, batch);
+                written += batch.size();
+                batch.clear();
+            }
+            return written;
+        }
+
+        private void flush() {
+            if (current == null) {
+                return;
+            }
+
+            batch.add(current);
+            current = null;
+            if (batch.size() == BATCH_SIZE) {
+                insertAll(INSERT, batch);
+                written += batch.size();
+                batch.clear();
+            }
+        }
+    }
+}
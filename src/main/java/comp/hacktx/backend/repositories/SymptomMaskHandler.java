@@ -0,0 +1,14 @@
+package comp.hacktx.backend.repositories;
+
+/**
+ * Receives how many reports share each distinct symptom bitmask.
+ */
+@FunctionalInterface
+public interface SymptomMaskHandler {
+
+    /**
+     * @param symptoms Symptom bitmask
+     * @param count    Number of reports with exactly this bitmask
+     */
+    void handle(int symptoms, long count);
+}
@@ -2,13 +2,37 @@ package comp.hacktx.backend.repositories;
 
 
 import comp.hacktx.backend.models.Report;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface SymptomsRepository extends CrudRepository<Report, String> {
+public interface SymptomsRepository extends CrudRepository<Report, Long>, SymptomsRepositoryCustom {
 
+    @Transactional(readOnly = true)
     List<Report> findAllByTimeBeforeAndTimeAfterAndZipcode(long end, long start, int zipcode);
+
+    @Transactional(readOnly = true)
+    List<Report> findAllByTimeBeforeAndTimeAfterAndZipcodeIn(long end, long start, Collection<Integer> zipcodes);
+
+    @Transactional(readOnly = true)
+    List<Report> findAllByTimeBeforeAndTimeAfterAndZipcodeBetween(long end, long start, int from, int to);
+
+    /**
+     * Streams reports in the window ordered by (time, id), starting strictly after the given keyset cursor. Must be
+     * consumed inside a transaction so the database can serve rows from a cursor.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select r from Report r where r.zipcode = :zipcode and r.time < :end and r.time > :start "
+            + "and (r.time > :afterTime or (r.time = :afterTime and r.id > :afterId)) order by r.time, r.id")
+    Stream<Report> streamAllAfter(@Param("zipcode") int zipcode, @Param("start") long start, @Param("end") long end,
+                                  @Param("afterTime") long afterTime, @Param("afterId") long afterId);
 }
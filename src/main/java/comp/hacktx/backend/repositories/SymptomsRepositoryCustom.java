@@ -0,0 +1,25 @@
+package comp.hacktx.backend.repositories;
+
+import comp.hacktx.backend.models.Report;
+
+import java.util.List;
+
+public interface SymptomsRepositoryCustom {
+
+    /**
+     * Inserts all reports with a single JDBC batch.
+     *
+     * @param reports New reports to insert
+     */
+    void insertAll(List<Report> reports);
+
+    /**
+     * Counts reports per distinct symptom bitmask, letting the database do the grouping so no rows are materialized.
+     *
+     * @param zipcode Zipcode to count reports for
+     * @param start   The beginning of the time window, exclusive. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window, exclusive. Measured in milliseconds from epoch.
+     * @param handler Called once per distinct bitmask
+     */
+    void countBySymptoms(int zipcode, long start, long end, SymptomMaskHandler handler);
+}
@@ -0,0 +1,38 @@
+package comp.hacktx.backend.repositories;
+
+import comp.hacktx.backend.models.Report;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public class SymptomsRepositoryImpl implements SymptomsRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SymptomsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Report> reports) {
+        jdbcTemplate.batchUpdate("insert into reports (id, time, zipcode, symptoms) values (?, ?, ?, ?)", reports,
+                reports.size(), (statement, report) -> {
+                    statement.setLong(1, report.getId());
+                    statement.setLong(2, report.getTime());
+                    statement.setInt(3, report.getZipcode());
+                    statement.setInt(4, report.getSymptoms());
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void countBySymptoms(int zipcode, long start, long end, SymptomMaskHandler handler) {
+        jdbcTemplate.query("select symptoms, count(*) from reports where zipcode = ? and time > ? and time < ? "
+                + "group by symptoms", resultSet -> {
+            handler.handle(resultSet.getInt(1), resultSet.getLong(2));
+        }, zipcode, start, end);
+    }
+}
@@ -1,13 +1,34 @@
 package comp.hacktx.backend.repositories;
 
 import comp.hacktx.backend.models.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface UserRepository extends CrudRepository<User, String> {
+public interface UserRepository extends CrudRepository<User, Long>, UserRepositoryCustom {
 
-    User findByUsername(String username);
+    // Read-write so lookups go to the primary, users are read right after being written (login after register,
+    // cache reloads after reports) and a lagging replica would miss them
+    @Transactional
+    Optional<User> findByUsername(String username);
 
+    @Transactional
     boolean existsByUsername(String username);
+
+    // Leaderboard rebuilds tolerate replica lag
+    @Transactional(readOnly = true)
+    @Query("select u.username as username, u.points as points from User u")
+    List<UserScore> findAllScores();
+
+    // Read right after reports are committed, so from the primary
+    @Transactional
+    @Query("select u.username as username, u.points as points from User u where u.username in :usernames")
+    List<UserScore> findScoresByUsernameIn(@Param("usernames") Collection<String> usernames);
 }
@@ -0,0 +1,26 @@
+package comp.hacktx.backend.repositories;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Rewards each user for a report with a single JDBC batch of conditional updates. A user is only updated if their
+     * last report is at least {@link comp.hacktx.backend.models.User#REPORT_INTERVAL} old, so the 24 hour rule holds
+     * even when reports of the same user race each other.
+     *
+     * @param usernames Users who submitted a report, in report order
+     * @param now       Time of the reports, measured in milliseconds from epoch
+     * @return For each username, true if the report was accepted and the user updated.
+     */
+    boolean[] registerReports(List<String> usernames, long now);
+
+    /**
+     * Replaces only the password column, so points and streaks committed since the user was read are kept.
+     *
+     * @param username Username of the user
+     * @param password New hashed password
+     * @return True if the user exists and was updated.
+     */
+    boolean updatePassword(String username, String password);
+}
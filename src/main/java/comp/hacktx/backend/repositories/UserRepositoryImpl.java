@@ -0,0 +1,76 @@
+package comp.hacktx.backend.repositories;
+
+import comp.hacktx.backend.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    // If the report was made less than 48 hours from the previous report or is the first report, then the user has
+    // submitted a report on two consecutive days and therefore their streak is incremented. Otherwise, reset streak.
+    private static final String REGISTER_REPORT = "update users set points = points + ?, "
+            + "streak = case when last_report = 0 or ? - last_report <= ? then streak + 1 else 0 end, "
+            + "last_report = ? "
+            + "where username = ? and ? - last_report >= ?";
+
+    private static final String REPORTED_AT = "select count(*) from users where username = ? and last_report = ?";
+
+    private static final String UPDATE_PASSWORD = "update users set password = ? where username = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean[] registerReports(List<String> usernames, long now) {
+        int[][] counts = jdbcTemplate.batchUpdate(REGISTER_REPORT, usernames, usernames.size(),
+                (statement, username) -> {
+                    statement.setInt(1, User.REPORT_REWARD);
+                    statement.setLong(2, now);
+                    statement.setLong(3, User.STREAK_WINDOW);
+                    statement.setLong(4, now);
+                    statement.setString(5, username);
+                    statement.setLong(6, now);
+                    statement.setLong(7, User.REPORT_INTERVAL);
+                });
+
+        // Single batch, so all counts are in the first row
+        boolean[] accepted = new boolean[usernames.size()];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < accepted.length; i++) {
+            String username = usernames.get(i);
+            int count = counts[0][i];
+
+            if (count == Statement.SUCCESS_NO_INFO) {
+                // Driver didn't say whether the row matched, so check whether this batch set the last report. Only the
+                // first report of a user in the batch can have been the one accepted.
+                accepted[i] = seen.add(username) && reportedAt(username, now);
+            } else {
+                accepted[i] = count > 0;
+                if (accepted[i]) {
+                    seen.add(username);
+                }
+            }
+        }
+
+        return accepted;
+    }
+
+    @Override
+    public boolean updatePassword(String username, String password) {
+        return jdbcTemplate.update(UPDATE_PASSWORD, password, username) > 0;
+    }
+
+    private boolean reportedAt(String username, long now) {
+        Integer count = jdbcTemplate.queryForObject(REPORTED_AT, Integer.class, username, now);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,11 @@
+package comp.hacktx.backend.repositories;
+
+/**
+ * Projection of a user down to what the leaderboard needs.
+ */
+public interface UserScore {
+
+    String getUsername();
+
+    int getPoints();
+}
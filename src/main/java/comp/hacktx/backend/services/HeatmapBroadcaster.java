@@ -0,0 +1,253 @@
+package comp.hacktx.backend.services;
+
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.models.Report;
+import comp.hacktx.backend.models.ZipcodeDelta;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes per-zipcode report deltas to server-sent event subscribers. Committed reports are coalesced per zipcode and
+ * handed out once per tick. Each subscriber keeps at most one pending delta per subscribed zipcode and at most one
+ * send in flight, so a slow subscriber only ever falls behind by merging more into its pending deltas, and never holds
+ * up ingestion or other subscribers' buffers.
+ * <p>
+ * A subscriber whose send has been stuck for longer than the send timeout is dropped and gets no more work, its sender
+ * thread is released once the container's write timeout (server.tomcat.connection-timeout) fails the write. Idle
+ * subscribers get a heartbeat comment now and then, which keeps proxies from closing the stream and reveals clients
+ * that went away.
+ */
+@Service
+public class HeatmapBroadcaster implements DisposableBean {
+
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+    private final ThreadPoolExecutor sender;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Deltas committed since the last tick, guarded by itself
+    private final Object pendingLock = new Object();
+    private Map<Integer, ZipcodeDelta> pending = new HashMap<>();
+
+    /**
+     * @param sendTimeoutMillis How long a single send may take before the subscriber is dropped
+     */
+    @Autowired
+    public HeatmapBroadcaster(@Value("${heatmap.max-subscribers:1000}") int maxSubscribers,
+                              @Value("${heatmap.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${heatmap.send-timeout-ms:5000}") long sendTimeoutMillis,
+                              @Value("${heatmap.sender-threads:4}") int senderThreads) {
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+
+        // One send task per subscriber at most, so the queue never needs to hold more than the subscriber count
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers));
+    }
+
+    /**
+     * @param zipcodes Zipcodes to receive deltas for, duplicates are ignored
+     * @return Emitter for the new subscription, or null if the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(int[] zipcodes) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // A repeated zipcode would have every delta merged into its pending delta once per occurrence
+        Subscriber subscriber = new Subscriber(emitter, Arrays.stream(zipcodes).distinct().toArray());
+        subscribers.add(subscriber);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        return emitter;
+    }
+
+    /**
+     * @param event Batch of reports that was just committed
+     */
+    @EventListener
+    public void onReportsCommitted(ReportsCommittedEvent event) {
+        synchronized (pendingLock) {
+            for (Report report : event.getReports()) {
+                pending.computeIfAbsent(report.getZipcode(), k -> new ZipcodeDelta()).add(report.getSymptoms());
+            }
+        }
+    }
+
+    /**
+     * Hands deltas committed since the last tick to every interested subscriber.
+     */
+    @Scheduled(fixedDelayString = "${heatmap.tick-ms:1000}")
+    public void tick() {
+        dropStalled();
+
+        Map<Integer, ZipcodeDelta> deltas;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            deltas = pending;
+            pending = new HashMap<>();
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            boolean schedule;
+
+            synchronized (subscriber) {
+                for (int zipcode : subscriber.zipcodes) {
+                    ZipcodeDelta delta = deltas.get(zipcode);
+                    if (delta != null) {
+                        subscriber.pending.computeIfAbsent(zipcode, k -> new ZipcodeDelta()).merge(delta);
+                    }
+                }
+
+                schedule = !subscriber.sending && !subscriber.pending.isEmpty();
+                subscriber.sending |= schedule;
+            }
+
+            if (schedule) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Sends a comment to every subscriber that has nothing in flight.
+     */
+    @Scheduled(fixedDelayString = "${heatmap.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                if (subscriber.sending) {
+                    continue;
+                }
+                subscriber.sending = true;
+                subscriber.heartbeat = true;
+            }
+
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Stops handing work to subscribers whose current send has taken too long.
+     */
+    private void dropStalled() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStarted;
+            if (started != 0 && now - started > sendTimeoutMillis) {
+                // The sender completes the emitter once the blocked write returns
+                subscribers.remove(subscriber);
+                subscriber.dropped = true;
+            }
+        }
+    }
+
+    /**
+     * @param subscriber Subscriber just marked as sending
+     */
+    private void schedule(Subscriber subscriber) {
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Deltas stay pending and are retried next tick
+            synchronized (subscriber) {
+                subscriber.sending = false;
+            }
+        }
+    }
+
+    /**
+     * @param subscriber Subscriber to send pending deltas to until none are left
+     */
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            synchronized (subscriber) {
+                if (!subscriber.pending.isEmpty()) {
+                    event = SseEmitter.event().name("delta").data(subscriber.pending, MediaType.APPLICATION_JSON);
+                    subscriber.pending = new HashMap<>();
+                } else if (subscriber.heartbeat) {
+                    event = SseEmitter.event().comment("heartbeat");
+                } else {
+                    subscriber.sending = false;
+                    return;
+                }
+
+                // Any send covers the heartbeat
+                subscriber.heartbeat = false;
+            }
+
+            subscriber.sendStarted = System.currentTimeMillis();
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            } finally {
+                subscriber.sendStarted = 0;
+            }
+
+            if (subscriber.dropped) {
+                subscriber.emitter.complete();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final int[] zipcodes;
+
+        // Guarded by the subscriber itself
+        private Map<Integer, ZipcodeDelta> pending = new HashMap<>();
+        private boolean sending;
+        private boolean heartbeat;
+
+        // Start of the send in flight or 0, and whether the subscriber was dropped for stalling, read by the tick
+        private volatile long sendStarted;
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter, int[] zipcodes) {
+            this.emitter = emitter;
+            this.zipcodes = zipcodes;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package comp.hacktx.backend.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Converts the String id columns of users and reports to bigint on PostgreSQL. Old ids were decimal nanosecond
+ * timestamps, so they convert losslessly.
+ */
+@Service
+public class IdColumnMigration implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdColumnMigration.class);
+
+    private static final String[] TABLES = {"users", "reports"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public IdColumnMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            return;
+        }
+
+        transactionTemplate.execute(status -> {
+            for (String table : TABLES) {
+                List<String> types = jdbcTemplate.queryForList("select data_type from information_schema.columns "
+                        + "where table_schema = current_schema() and table_name = ? and column_name = 'id'",
+                        String.class, table);
+
+                if (!types.isEmpty() && !"bigint".equals(types.get(0))) {
+                    LOGGER.info("Converting {}.id from {} to bigint", table, types.get(0));
+                    jdbcTemplate.execute("alter table " + table + " alter column id type bigint using id::bigint");
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package comp.hacktx.backend.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates unique, roughly time ordered 64-bit ids without locking. Each id is made of 41 bits of milliseconds since
+ * 2020-01-01, a 10 bit node id and a 12 bit per-millisecond sequence, so nodes with distinct node ids never collide.
+ * A node id derived from the host name can collide, so one must be configured when running several instances.
+ */
+@Service
+public class IdGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdGenerator.class);
+
+    private static final long EPOCH = 1577836800000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+
+    // Last issued timestamp and sequence, packed as (timestamp << SEQUENCE_BITS) | sequence
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param node       Node id in [0, 1023], or -1 to derive one from the host name
+     * @param stateStore Configured state store, "redis" meaning several instances share the database
+     */
+    @Autowired
+    public IdGenerator(@Value("${ids.node-id:-1}") long node, @Value("${state.store:local}") String stateStore) {
+        this(requireNodeIfShared(node, stateStore), System::currentTimeMillis);
+    }
+
+    /**
+     * @param node  Node id in [0, 1023], or -1 to derive one from the host name
+     * @param clock Current time, measured in milliseconds from epoch
+     */
+    IdGenerator(long node, LongSupplier clock) {
+        this.clock = clock;
+
+        if (node < 0) {
+            node = hostNode();
+            LOGGER.warn("No ids.node-id configured, using {} derived from host name", node);
+        }
+
+        if (node > MAX_NODE) {
+            throw new IllegalArgumentException("ids.node-id must be between 0 and " + MAX_NODE);
+        }
+
+        this.node = node;
+    }
+
+    /**
+     * @return A new id, unique across all nodes with distinct node ids
+     */
+    public long nextId() {
+        while (true) {
+            long now = clock.getAsLong() - EPOCH;
+            long previous = state.get();
+
+            // New millisecond restarts the sequence. Within the same millisecond (or if the clock went backwards) the
+            // sequence is bumped, and once it overflows it carries into the timestamp.
+            long next = now > previous >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : previous + 1;
+
+            if (state.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    private static long requireNodeIfShared(long node, String stateStore) {
+        if (node < 0 && "redis".equals(stateStore)) {
+            throw new IllegalStateException("ids.node-id must be set to a distinct value on each instance when "
+                    + "state.store=redis");
+        }
+        return node;
+    }
+
+    private static long hostNode() {
+        try {
+            return InetAddress.getLocalHost().getHostName().hashCode() & MAX_NODE;
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package comp.hacktx.backend.services;
+
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.models.User;
+import comp.hacktx.backend.state.SharedStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * In-memory index of when each user last reported, used to reject repeat reports without touching the database.
+ * Usernames are hashed to 64-bit keys and stored with their timestamps in primitive open addressing tables, split into
+ * independently locked segments. Only reports from the last 24 hours matter, so older entries are purged whenever a
+ * segment fills up, and if one is still full the entry is simply not indexed. A missing entry only means the database
+ * makes the decision, which keeps the index safe to be incomplete.
+ * <p>
+ * Reports are also written through to the shared state store, which is consulted on local misses so reports accepted
+ * by other instances are rejected here without a database round trip too. Store failures are counted and otherwise
+ * treated as misses.
+ */
+@Service
+public class LastReportIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LastReportIndex.class);
+
+    private static final int SEGMENTS = 16;
+
+    private static final String KEY_PREFIX = "last-report:";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SharedStateStore store;
+    private final Counter storeFailures;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * @param maxEntries Maximum number of users indexed at once
+     */
+    @Autowired
+    public LastReportIndex(JdbcTemplate jdbcTemplate, SharedStateStore store, MeterRegistry meterRegistry,
+                           @Value("${reports.last-report-index.max-entries:1048576}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.store = store;
+        this.storeFailures = meterRegistry.counter("state.store.failures", "use", "last-report");
+
+        // Round capacity up to a power of two so probing can mask instead of divide
+        int capacity = Integer.highestOneBit(Math.max(16, maxEntries / SEGMENTS - 1)) << 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * @param username Username to look up
+     * @return Time of the user's last report if it is known to be within the last 24 hours, 0 otherwise.
+     */
+    public long lastReport(String username) {
+        long key = key(username);
+        long time = segmentFor(key).get(key);
+        if (time != 0) {
+            return time;
+        }
+
+        // Possibly reported through another instance
+        try {
+            time = store.get(KEY_PREFIX + username);
+        } catch (DataAccessException e) {
+            storeFailures.increment();
+            return 0;
+        }
+
+        if (System.currentTimeMillis() - time >= User.REPORT_INTERVAL) {
+            return 0;
+        }
+
+        segmentFor(key).put(key, time);
+        return time;
+    }
+
+    /**
+     * @param username Username of the reporter
+     * @param time     Time of the report, measured in milliseconds from epoch
+     */
+    public void record(String username, long time) {
+        remember(username, time);
+
+        long ttlMillis = time + User.REPORT_INTERVAL - System.currentTimeMillis();
+        if (ttlMillis > 0) {
+            try {
+                store.max(KEY_PREFIX + username, time, ttlMillis);
+            } catch (DataAccessException e) {
+                storeFailures.increment();
+            }
+        }
+    }
+
+    /**
+     * Loads everyone who reported within the last 24 hours.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long since = System.currentTimeMillis() - User.REPORT_INTERVAL;
+        try {
+            jdbcTemplate.query("select username, last_report from users where last_report >= ?",
+                    resultSet -> {
+                        remember(resultSet.getString(1), resultSet.getLong(2));
+                    }, since);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not warm last report index, falling back to database checks", e);
+        }
+    }
+
+    /**
+     * @param event Batch of reports that was just committed
+     */
+    @EventListener
+    public void onReportsCommitted(ReportsCommittedEvent event) {
+        // Remote batches were already written through to the store by the instance that committed them
+        List<String> usernames = event.getUsernames();
+        for (String username : usernames) {
+            if (event.isRemote()) {
+                remember(username, event.getTime());
+            } else {
+                record(username, event.getTime());
+            }
+        }
+    }
+
+    /**
+     * Indexes a report in this instance only.
+     */
+    private void remember(String username, long time) {
+        long key = key(username);
+        segmentFor(key).put(key, time);
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * @param username Username to hash
+     * @return 64-bit FNV-1a hash of the username, never 0 since 0 marks empty slots
+     */
+    private static long key(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            hash ^= username.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static class Segment {
+
+        private long[] keys;
+        private long[] times;
+        private int size;
+
+        private Segment(int capacity) {
+            this.keys = new long[capacity];
+            this.times = new long[capacity];
+        }
+
+        private synchronized long get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    long time = times[slot];
+                    return System.currentTimeMillis() - time < User.REPORT_INTERVAL ? time : 0;
+                }
+            }
+            return 0;
+        }
+
+        private synchronized void put(long key, long time) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    times[slot] = Math.max(times[slot], time);
+                    return;
+                }
+            }
+
+            // Keep load under 75% so probes stay short
+            if (size + 1 > keys.length * 3 / 4) {
+                purgeExpired();
+                if (size + 1 > keys.length * 3 / 4) {
+                    return;
+                }
+                put(key, time);
+                return;
+            }
+
+            keys[slot] = key;
+            times[slot] = time;
+            size++;
+        }
+
+        /**
+         * Rebuilds the table without entries older than 24 hours.
+         */
+        private void purgeExpired() {
+            long cutoff = System.currentTimeMillis() - User.REPORT_INTERVAL;
+            long[] oldKeys = keys;
+            long[] oldTimes = times;
+
+            keys = new long[oldKeys.length];
+            times = new long[oldTimes.length];
+            size = 0;
+
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldTimes[i] >= cutoff) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    times[slot] = oldTimes[i];
+                    size++;
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            return (int) (key ^ (key >>> 32));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package comp.hacktx.backend.services;
+
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.events.UserRegisteredEvent;
+import comp.hacktx.backend.models.LeaderboardEntry;
+import comp.hacktx.backend.repositories.UserRepository;
+import comp.hacktx.backend.repositories.UserScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Users ranked by points, kept in memory as an order statistic treap so updates, top N and rank lookups are all
+ * logarithmic instead of sorting the users table. Built from the database once the application is ready, then kept
+ * current from committed reports and new registrations, and reconciled with the database periodically.
+ * <p>
+ * Points only ever grow, so every update takes the larger of the known and the newly read points. That makes updates
+ * idempotent and lets them be applied in any order, including a rebuild racing with commits.
+ */
+@Service
+public class Leaderboard {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Leaderboard.class);
+
+    private final UserRepository userRepository;
+
+    // Current points of every ranked user, to find their node in the tree
+    private final Map<String, Integer> points = new HashMap<>();
+    private Node root;
+
+    @Autowired
+    public Leaderboard(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Merges every user's points from the database, catching up on anything missed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${leaderboard.reconcile-ms:600000}",
+            fixedDelayString = "${leaderboard.reconcile-ms:600000}")
+    public void rebuild() {
+        List<UserScore> scores = userRepository.findAllScores();
+        mergeScores(scores);
+        LOGGER.info("Ranked {} users", scores.size());
+    }
+
+    /**
+     * @param event Batch of reports that was just committed, each of which rewarded its reporter
+     */
+    @EventListener
+    public void onReportsCommitted(ReportsCommittedEvent event) {
+        // Current totals rather than adding the reward, so batches seen twice or during a rebuild aren't counted twice
+        mergeScores(userRepository.findScoresByUsernameIn(new LinkedHashSet<>(event.getUsernames())));
+    }
+
+    /**
+     * @param event Newly registered user, who starts with no points
+     */
+    @EventListener
+    public synchronized void onUserRegistered(UserRegisteredEvent event) {
+        if (!points.containsKey(event.getUsername())) {
+            set(event.getUsername(), 0);
+        }
+    }
+
+    /**
+     * @param n Number of entries to return
+     * @return Up to n highest ranked users, best first
+     */
+    public synchronized List<LeaderboardEntry> top(int n) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(n, points.size()));
+        collect(root, n, entries);
+        return entries;
+    }
+
+    /**
+     * @param username Username to look up
+     * @return Username's position on the leaderboard, or null if they are not ranked
+     */
+    public synchronized LeaderboardEntry rank(String username) {
+        Integer current = points.get(username);
+        if (current == null) {
+            return null;
+        }
+
+        // Users with equal points share the rank after everyone with more points
+        return new LeaderboardEntry(countAhead(current) + 1, username, current);
+    }
+
+    /**
+     * @param scores Points read from the database, possibly older than what is known already
+     */
+    private synchronized void mergeScores(List<UserScore> scores) {
+        for (UserScore score : scores) {
+            Integer current = points.get(score.getUsername());
+            if (current == null || score.getPoints() > current) {
+                set(score.getUsername(), score.getPoints());
+            }
+        }
+    }
+
+    private void set(String username, int score) {
+        Integer previous = points.put(username, score);
+        if (previous != null) {
+            root = remove(root, previous, username);
+        }
+        root = insert(root, new Node(username, score));
+    }
+
+    /**
+     * @return Number of users with strictly more points
+     */
+    private int countAhead(int score) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.points > score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Appends nodes in rank order until limit entries are collected.
+     */
+    private void collect(Node node, int limit, List<LeaderboardEntry> entries) {
+        if (node == null || entries.size() >= limit) {
+            return;
+        }
+
+        collect(node.left, limit, entries);
+        if (entries.size() < limit) {
+            // Share the previous entry's rank on ties, otherwise rank is the position
+            int rank = entries.size() + 1;
+            if (!entries.isEmpty()) {
+                LeaderboardEntry last = entries.get(entries.size() - 1);
+                if (last.getPoints() == node.points) {
+                    rank = last.getRank();
+                }
+            }
+            entries.add(new LeaderboardEntry(rank, node.username, node.points));
+        }
+        collect(node.right, limit, entries);
+    }
+
+    /**
+     * Orders by points descending, then username so every user has a distinct position.
+     */
+    private static int compare(int points, String username, Node node) {
+        if (points != node.points) {
+            return points > node.points ? -1 : 1;
+        }
+        return username.compareTo(node.username);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+
+        if (compare(inserted.points, inserted.username, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+
+        node.update();
+        return node;
+    }
+
+    private static Node remove(Node node, int points, String username) {
+        if (node == null) {
+            return null;
+        }
+
+        int comparison = compare(points, username, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, points, username);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, points, username);
+        } else {
+            return merge(node.left, node.right);
+        }
+
+        node.update();
+        return node;
+    }
+
+    /**
+     * Joins two treaps where every node of left orders before every node of right.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        return right;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node {
+
+        private final String username;
+        private final int points;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(String username, int points) {
+            this.username = username;
+            this.points = points;
+        }
+
+        private void update() {
+            size = size(left) + size(right) + 1;
+        }
+    }
+}
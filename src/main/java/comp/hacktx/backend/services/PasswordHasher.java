@@ -0,0 +1,107 @@
+package comp.hacktx.backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt hashing on a dedicated, bounded pool so credential work can't tie up request threads. When the pool and
+ * its queue are full, new work is rejected immediately instead of piling up.
+ */
+@Service
+public class PasswordHasher implements DisposableBean {
+
+    private static final int COST = 10;
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final Timer hashTimer;
+    private final Timer checkTimer;
+
+    /**
+     * @param threads   Number of hashing threads, or 0 to use one per available processor
+     * @param queueSize Number of hashing requests allowed to wait for a thread
+     */
+    @Autowired
+    public PasswordHasher(@Value("${security.hashing.threads:0}") int threads,
+                          @Value("${security.hashing.queue-size:64}") int queueSize,
+                          MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new HasherThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        // Exposes queue depth, active threads and completed tasks
+        new ExecutorServiceMetrics(executor, "password.hashing", Tags.empty()).bindTo(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Hashing requests rejected because the hashing queue was full")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password.hashing.duration").tag("operation", "hash")
+                .register(meterRegistry);
+        this.checkTimer = Timer.builder("password.hashing.duration").tag("operation", "check")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param password Plaintext password
+     * @return Future completing with the BCrypt hash, or failing with RejectedExecutionException if saturated.
+     */
+    public CompletableFuture<String> hash(String password) {
+        return submit(() -> hashTimer.record(() -> BCrypt.hashpw(password, BCrypt.gensalt(COST))));
+    }
+
+    /**
+     * @param password Plaintext password
+     * @param hashed   Stored BCrypt hash
+     * @return Future completing with true if the password matches, or failing with RejectedExecutionException if
+     * saturated.
+     */
+    public CompletableFuture<Boolean> check(String password, String hashed) {
+        return submit(() -> checkTimer.record(() -> BCrypt.checkpw(password, hashed)));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static class HasherThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package comp.hacktx.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.models.Report;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Cache of serialized record responses by zipcode, time window and encoding, bounded by total size. An entry is dropped
+ * when a committed report falls inside its window, and otherwise expires after a while so retention deletes, replica
+ * lag and missed commit messages from other instances are eventually picked up.
+ */
+@Service
+public class RecordsCache {
+
+    private static final int STRIPES = 1024;
+
+    private final Cache<Key, CachedResponse> responses;
+    private final long closedAfterMillis;
+    private final long maxAgeSeconds;
+
+    // Bumped per zipcode stripe on every commit, so queries racing with a commit aren't cached
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param maxBytes          Maximum total size of cached responses
+     * @param ttlSeconds        How long a response is served from this cache at most
+     * @param closedAfterMillis How long after a window ends that no more reports can land in it
+     * @param maxAgeSeconds     How long clients may reuse the response of a closed window without revalidating
+     */
+    @Autowired
+    public RecordsCache(MeterRegistry meterRegistry,
+                        @Value("${records.cache.max-bytes:67108864}") long maxBytes,
+                        @Value("${records.cache.ttl-seconds:600}") long ttlSeconds,
+                        @Value("${records.cache.closed-after-ms:60000}") long closedAfterMillis,
+                        @Value("${records.cache.max-age-seconds:300}") long maxAgeSeconds) {
+        this.closedAfterMillis = closedAfterMillis;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .<Key, CachedResponse>weigher((key, response) -> response.getBody().length)
+                .recordStats()
+                .build();
+
+        // Exposes hits, misses, evictions and size as cache.* metrics tagged cache=records
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "records");
+    }
+
+    /**
+     * @param zipcode Zipcode of the query
+     * @param start   Start of the window, exclusive, measured in milliseconds from epoch
+     * @param end     End of the window, exclusive, measured in milliseconds from epoch
+     * @param format  Media type the response is encoded as
+     * @param loader  Runs the query and serializes its response on a miss
+     * @return Cached or freshly loaded response
+     */
+    public CachedResponse get(int zipcode, long start, long end, String format, Supplier<CachedResponse> loader) {
+        Key key = new Key(zipcode, start, end, format);
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int stripe = stripe(zipcode);
+        long generation = generations.get(stripe);
+        CachedResponse loaded = loader.get();
+        responses.put(key, loaded);
+
+        // A report for this zipcode was committed while querying, the response may predate it
+        if (generations.get(stripe) != generation) {
+            responses.invalidate(key);
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Closed windows take no new reports, but can still lose reports to retention, so clients get a bounded max-age
+     * rather than a permanent one. Open windows are always revalidated.
+     *
+     * @param end End of a queried window, measured in milliseconds from epoch
+     * @return Cache-Control for the response of the window
+     */
+    public CacheControl cacheControl(long end) {
+        if (end < System.currentTimeMillis() - closedAfterMillis) {
+            return CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+        }
+        return CacheControl.noCache();
+    }
+
+    /**
+     * @param event Batch of reports that was just committed
+     */
+    @EventListener
+    public void onReportsCommitted(ReportsCommittedEvent event) {
+        Map<Integer, List<Long>> times = new HashMap<>();
+        for (Report report : event.getReports()) {
+            times.computeIfAbsent(report.getZipcode(), zipcode -> new ArrayList<>()).add(report.getTime());
+            generations.incrementAndGet(stripe(report.getZipcode()));
+        }
+
+        // Drop only the windows a new report falls into
+        responses.asMap().keySet().removeIf(key -> {
+            List<Long> reported = times.get(key.zipcode);
+            if (reported == null) {
+                return false;
+            }
+
+            for (long time : reported) {
+                if (time > key.start && time < key.end) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private static int stripe(int zipcode) {
+        return (zipcode ^ (zipcode >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Serialized response along with its entity tag and number of reports. The tag is weak as it describes the
+     * content rather than the exact bytes, which lets Tomcat gzip the response on the way out.
+     */
+    public static class CachedResponse {
+
+        private final byte[] body;
+        private final int resultSize;
+        private final String etag;
+
+        /**
+         * @param body       Serialized response
+         * @param resultSize Number of reports in the response
+         */
+        public CachedResponse(byte[] body, int resultSize) {
+            this.body = body;
+            this.resultSize = resultSize;
+            this.etag = "W/\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public int getResultSize() {
+            return resultSize;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    private static class Key {
+
+        private final int zipcode;
+        private final long start;
+        private final long end;
+        private final String format;
+
+        private Key(int zipcode, long start, long end, String format) {
+            this.zipcode = zipcode;
+            this.start = start;
+            this.end = end;
+            this.format = format;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return zipcode == key.zipcode && start == key.start && end == key.end && format.equals(key.format);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zipcode, start, end, format);
+        }
+    }
+}
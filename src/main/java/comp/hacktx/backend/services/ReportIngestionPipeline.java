@@ -0,0 +1,203 @@
+package comp.hacktx.backend.services;
+
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.models.Report;
+import comp.hacktx.backend.repositories.SymptomsRepository;
+import comp.hacktx.backend.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind pipeline for incoming reports. Validated reports wait in a bounded queue and are written together with
+ * their user updates and rollups in one transaction of JDBC batches, once either enough reports have queued up or the
+ * oldest one has waited long enough. A report is only acknowledged after its batch has committed, and only counts if
+ * the conditional user update accepted it.
+ */
+@Service
+public class ReportIngestionPipeline implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportIngestionPipeline.class);
+
+    private final SymptomsRepository symptomsRepository;
+    private final UserRepository userRepository;
+    private final RollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final BlockingQueue<PendingReport> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+
+    private final Thread flusher;
+    private volatile boolean running;
+
+    @Autowired
+    public ReportIngestionPipeline(SymptomsRepository symptomsRepository, UserRepository userRepository,
+                                   RollupService rollupService,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${reports.ingestion.queue-capacity:1000}") int queueCapacity,
+                                   @Value("${reports.ingestion.batch-size:100}") int batchSize,
+                                   @Value("${reports.ingestion.max-delay-ms:50}") long maxDelayMillis) {
+        this.symptomsRepository = symptomsRepository;
+        this.userRepository = userRepository;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.flusher = new Thread(this::run, "report-ingestion");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * @param username User submitting the report
+     * @param report   The incoming symptoms report from the user
+     * @return Future completing with true once the report is committed, false if the user already reported within
+     * the last 24 hours, or failing with RejectedExecutionException right away if the queue is full.
+     */
+    public CompletableFuture<Boolean> submit(String username, Report report) {
+        PendingReport pending = new PendingReport(username, report);
+
+        // Apply back-pressure instead of buffering without limit
+        if (!running || !queue.offer(pending)) {
+            pending.ack.completeExceptionally(new RejectedExecutionException("report queue full"));
+        }
+
+        return pending.ack;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        flusher.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // Flusher drains whatever is left before exiting
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<PendingReport> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                // Wait for the first report, then fill the batch until it's full or the deadline passes
+                PendingReport first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+
+                    PendingReport next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * @param batch Reports to commit together
+     */
+    private void flush(List<PendingReport> batch) {
+        List<String> usernames = new ArrayList<>(batch.size());
+        for (PendingReport pending : batch) {
+            usernames.add(pending.username);
+        }
+
+        List<Report> reports = new ArrayList<>(batch.size());
+        List<String> reporters = new ArrayList<>(batch.size());
+        boolean[] accepted;
+        long now = System.currentTimeMillis();
+
+        try {
+            accepted = transactionTemplate.execute(status -> {
+                // Users are updated first so only reports passing the 24 hour rule are stored
+                boolean[] updated = userRepository.registerReports(usernames, now);
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i]) {
+                        reports.add(batch.get(i).report);
+                        reporters.add(batch.get(i).username);
+                    }
+                }
+
+                symptomsRepository.insertAll(reports);
+                rollupService.add(reports);
+                return updated;
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to write batch of {} reports", batch.size(), e);
+            for (PendingReport pending : batch) {
+                pending.ack.completeExceptionally(e);
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).ack.complete(accepted[i]);
+        }
+
+        if (reports.isEmpty()) {
+            return;
+        }
+
+        try {
+            eventPublisher.publishEvent(new ReportsCommittedEvent(reports, reporters, now));
+        } catch (RuntimeException e) {
+            // Reports are already durable, listeners failing must not stop ingestion
+            LOGGER.error("Failed to publish committed reports", e);
+        }
+    }
+
+    private static class PendingReport {
+
+        private final String username;
+        private final Report report;
+        private final CompletableFuture<Boolean> ack = new CompletableFuture<>();
+
+        private PendingReport(String username, Report report) {
+            this.username = username;
+            this.report = report;
+        }
+    }
+}
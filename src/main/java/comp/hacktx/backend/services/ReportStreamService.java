@@ -0,0 +1,86 @@
+package comp.hacktx.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import comp.hacktx.backend.models.Report;
+import comp.hacktx.backend.repositories.SymptomsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes report ranges as newline delimited JSON straight from a database cursor, so memory use does not depend on
+ * the size of the result.
+ */
+@Service
+public class ReportStreamService {
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final SymptomsRepository symptomsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter reportWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ReportStreamService(SymptomsRepository symptomsRepository, PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper) {
+        this.symptomsRepository = symptomsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.reportWriter = objectMapper.writerFor(Report.class);
+    }
+
+    /**
+     * Each line holds one report. Clients resume by passing the time and id of the last line they received as the
+     * next cursor.
+     *
+     * @param zipcode   Zipcode to query for records
+     * @param start     The beginning of the time window. Measured in milliseconds from epoch.
+     * @param end       The ending of the time window. Measured in milliseconds from epoch.
+     * @param afterTime Time of the last report already received, or start if none
+     * @param afterId   Id of the last report already received, or any value if none
+     * @param limit     Maximum number of reports to write, or 0 for no limit
+     * @param out       Stream to write reports to
+     */
+    public void write(int zipcode, long start, long end, long afterTime, long afterId, int limit,
+                      OutputStream out) {
+        transactionTemplate.execute(status -> {
+            try (Stream<Report> reports = symptomsRepository.streamAllAfter(zipcode, start, end, afterTime,
+                    afterId)) {
+                Iterator<Report> iterator = reports.iterator();
+                int written = 0;
+
+                while (iterator.hasNext() && (limit == 0 || written < limit)) {
+                    Report report = iterator.next();
+                    out.write(reportWriter.writeValueAsBytes(report));
+                    out.write('\n');
+
+                    // Don't let the persistence context grow with the result
+                    entityManager.detach(report);
+
+                    if (++written % FLUSH_INTERVAL == 0) {
+                        out.flush();
+                    }
+                }
+
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return null;
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package comp.hacktx.backend.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps the reports table range partitioned by month on PostgreSQL, with a composite (zipcode, time) index on every
+ * partition. On startup an existing plain reports table is migrated into partitions. Partitions are created ahead of
+ * time and, if retention is enabled, whole partitions past retention are dropped instead of deleting rows. Rollups in
+ * report_buckets are not affected by retention. Every instance runs this, so each run holds a transaction scoped
+ * advisory lock and instances starting together migrate one after the other, the later ones finding nothing to do.
+ * <p>
+ * Other databases are left alone and rely on the index declared on {@link comp.hacktx.backend.models.Report}.
+ */
+@Service
+public class ReportsPartitionManager implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportsPartitionManager.class);
+
+    private static final String PARTITION_PREFIX = "reports_y";
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("yyyy'm'MM");
+
+    // Arbitrary application wide key of the advisory lock, "reports" in ASCII
+    private static final long LOCK_KEY = 0x7265706f727473L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    /**
+     * @param monthsAhead     Number of future months to keep partitions ready for
+     * @param retentionMonths Number of past months to keep reports for, or 0 to keep them forever
+     */
+    @Autowired
+    public ReportsPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   @Value("${reports.partitioning.enabled:true}") boolean enabled,
+                                   @Value("${reports.partitioning.months-ahead:3}") int monthsAhead,
+                                   @Value("${reports.retention.months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isActive()) {
+            return;
+        }
+
+        transactionTemplate.execute(status -> {
+            lock();
+            migrate();
+            return null;
+        });
+        maintain();
+    }
+
+    /**
+     * Creates upcoming partitions and drops expired ones. Runs daily.
+     */
+    @Scheduled(cron = "${reports.partitioning.cron:0 0 3 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!isActive()) {
+            return;
+        }
+
+        transactionTemplate.execute(status -> {
+            lock();
+
+            YearMonth now = YearMonth.now(ZoneOffset.UTC);
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(now.plusMonths(i));
+            }
+
+            if (retentionMonths > 0) {
+                dropPartitionsBefore(now.minusMonths(retentionMonths));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Waits for other instances changing partitions, holding the lock until the current transaction ends.
+     */
+    private void lock() {
+        jdbcTemplate.execute("select pg_advisory_xact_lock(" + LOCK_KEY + ")");
+    }
+
+    private boolean isActive() {
+        if (!enabled) {
+            return false;
+        }
+
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(product);
+    }
+
+    /**
+     * Creates the partitioned reports table, moving rows over from a plain reports table if one exists.
+     */
+    private void migrate() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "select exists (select 1 from pg_partitioned_table where partrelid = to_regclass('reports'))",
+                Boolean.class);
+        if (Boolean.TRUE.equals(partitioned)) {
+            return;
+        }
+
+        Boolean exists = jdbcTemplate.queryForObject("select to_regclass('reports') is not null", Boolean.class);
+        if (Boolean.TRUE.equals(exists)) {
+            LOGGER.info("Migrating reports table to monthly partitions");
+
+            // Free up constraint and index names for the new table
+            jdbcTemplate.execute("alter table reports rename to reports_legacy");
+            jdbcTemplate.execute("alter index if exists reports_pkey rename to reports_legacy_pkey");
+            jdbcTemplate.execute("alter index if exists reports_zipcode_time_idx "
+                    + "rename to reports_legacy_zipcode_time_idx");
+        }
+
+        // Partition key has to be part of the primary key
+        jdbcTemplate.execute("create table reports (id bigint not null, time bigint not null, "
+                + "zipcode integer not null, symptoms integer not null, primary key (id, time)) "
+                + "partition by range (time)");
+        jdbcTemplate.execute("create index reports_zipcode_time_idx on reports (zipcode, time)");
+
+        if (Boolean.TRUE.equals(exists)) {
+            // Cover every month that has legacy data before copying it over
+            Long oldest = jdbcTemplate.queryForObject("select min(time) from reports_legacy", Long.class);
+            if (oldest != null) {
+                YearMonth month = YearMonth.from(Instant.ofEpochMilli(oldest).atZone(ZoneOffset.UTC));
+                YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                for (; !month.isAfter(current); month = month.plusMonths(1)) {
+                    createPartition(month);
+                }
+            }
+
+            jdbcTemplate.execute("insert into reports (id, time, zipcode, symptoms) "
+                    + "select cast(id as bigint), time, zipcode, symptoms from reports_legacy");
+            jdbcTemplate.execute("drop table reports_legacy");
+        }
+    }
+
+    /**
+     * @param month Month to create a partition for, if it doesn't exist yet
+     */
+    private void createPartition(YearMonth month) {
+        long from = month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long to = month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        jdbcTemplate.execute("create table if not exists " + partitionName(month) + " partition of reports "
+                + "for values from (" + from + ") to (" + to + ")");
+    }
+
+    /**
+     * @param cutoff Oldest month to keep
+     */
+    private void dropPartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList("select c.relname from pg_inherits i "
+                + "join pg_class c on c.oid = i.inhrelid where i.inhparent = to_regclass('reports')", String.class);
+
+        // Partition names sort the same way as their months
+        String cutoffName = partitionName(cutoff);
+        for (String partition : partitions) {
+            if (partition.startsWith(PARTITION_PREFIX) && partition.compareTo(cutoffName) < 0) {
+                LOGGER.info("Dropping expired reports partition {}", partition);
+                jdbcTemplate.execute("drop table if exists " + partition);
+            }
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_FORMAT);
+    }
+}
@@ -0,0 +1,150 @@
+package comp.hacktx.backend.services;
+
+import comp.hacktx.backend.models.BucketSpan;
+import comp.hacktx.backend.models.Report;
+import comp.hacktx.backend.models.ReportBucket;
+import comp.hacktx.backend.repositories.ReportBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains hourly and daily per-zipcode rollups of submitted reports so range queries can be answered from buckets
+ * instead of scanning raw reports. Buckets are updated in the same transaction that stores the reports, so the two
+ * never disagree.
+ * <p>
+ * On startup, buckets are recomputed once from the reports table, covering reports stored before rollups existed.
+ * A marker row in rollup_backfills keeps it from running again.
+ */
+@Service
+@DependsOn("reportsPartitionManager")
+public class RollupService implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RollupService.class);
+
+    private static final String BACKFILL = "report_buckets_v1";
+
+    // Arbitrary application wide key of the advisory lock, "rollups" in ASCII
+    private static final long LOCK_KEY = 0x726f6c6c757073L;
+
+    private final ReportBucketRepository bucketRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public RollupService(ReportBucketRepository bucketRepository, JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager) {
+        this.bucketRepository = bucketRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        transactionTemplate.execute(status -> {
+            backfill();
+            return null;
+        });
+    }
+
+    /**
+     * Adds reports to every bucket span they fall into. Runs inside the transaction storing the reports.
+     *
+     * @param reports Reports just inserted
+     */
+    @Transactional
+    public void add(List<Report> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+
+        // Each touched bucket is created if needed, then locked, read and written once per batch
+        Map<String, ReportBucket> created = new HashMap<>();
+        for (Report report : reports) {
+            for (BucketSpan span : BucketSpan.values()) {
+                long bucketStart = span.floor(report.getTime());
+                created.computeIfAbsent(ReportBucket.idFor(report.getZipcode(), span, bucketStart),
+                        id -> new ReportBucket(report.getZipcode(), span, bucketStart));
+            }
+        }
+        bucketRepository.insertMissing(new ArrayList<>(created.values()));
+
+        Map<String, ReportBucket> buckets = new HashMap<>();
+        for (ReportBucket bucket : bucketRepository.findAllByIdInOrderByIdAsc(created.keySet())) {
+            buckets.put(bucket.getId(), bucket);
+        }
+
+        for (Report report : reports) {
+            for (BucketSpan span : BucketSpan.values()) {
+                String id = ReportBucket.idFor(report.getZipcode(), span, span.floor(report.getTime()));
+                buckets.get(id).add(report.getSymptoms());
+            }
+        }
+
+        bucketRepository.saveAll(buckets.values());
+    }
+
+    /**
+     * Buckets are aligned to the span, so the first and last bucket may cover time outside of the window.
+     *
+     * @param zipcode Zipcode to query buckets for
+     * @param span    Width of buckets to return
+     * @param start   The beginning of the time window. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window. Measured in milliseconds from epoch.
+     * @return All non-empty buckets overlapping the window, ordered by time.
+     */
+    @Transactional(readOnly = true)
+    public List<ReportBucket> query(int zipcode, BucketSpan span, long start, long end) {
+        return bucketRepository.findAllByZipcodeAndSpanAndBucketStartBetweenOrderByBucketStart(zipcode,
+                span.getMillis(), span.floor(start), end);
+    }
+
+    /**
+     * Recomputes buckets from reports unless that was done before.
+     */
+    private void backfill() {
+        boolean postgres = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()));
+
+        // Other instances wait here, then find the marker
+        if (postgres) {
+            jdbcTemplate.execute("select pg_advisory_xact_lock(" + LOCK_KEY + ")");
+        }
+
+        jdbcTemplate.execute("create table if not exists rollup_backfills "
+                + "(name varchar(64) primary key, completed_at bigint not null)");
+        Integer done = jdbcTemplate.queryForObject("select count(*) from rollup_backfills where name = ?",
+                Integer.class, BACKFILL);
+        if (done != null && done > 0) {
+            return;
+        }
+
+        // Running instances add to buckets in their own transactions, hold them off until the recompute commits
+        if (postgres) {
+            jdbcTemplate.execute("lock table report_buckets in exclusive mode");
+        }
+
+        // Reports dropped by retention are gone, so only buckets from the oldest remaining day on are recomputed
+        Long oldest = jdbcTemplate.queryForObject("select min(time) from reports", Long.class);
+        if (oldest != null) {
+            int written = bucketRepository.recomputeFrom(BucketSpan.DAY.floor(oldest));
+            LOGGER.info("Recomputed {} report buckets", written);
+        }
+
+        jdbcTemplate.update("insert into rollup_backfills (name, completed_at) values (?, ?)", BACKFILL,
+                System.currentTimeMillis());
+    }
+}
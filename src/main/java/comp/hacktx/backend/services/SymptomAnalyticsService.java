@@ -0,0 +1,154 @@
+package comp.hacktx.backend.services;
+
+import comp.hacktx.backend.models.BucketSpan;
+import comp.hacktx.backend.models.ReportBucket;
+import comp.hacktx.backend.models.SymptomSummary;
+import comp.hacktx.backend.models.SymptomTrends;
+import comp.hacktx.backend.repositories.SymptomsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes symptom bitmasks server side. Summaries work from report counts per distinct bitmask, so the cost depends on
+ * how many symptom combinations exist rather than how many reports there are. Trends come from the hourly and daily
+ * rollups.
+ */
+@Service
+public class SymptomAnalyticsService {
+
+    private final SymptomsRepository symptomsRepository;
+    private final RollupService rollupService;
+
+    @Autowired
+    public SymptomAnalyticsService(SymptomsRepository symptomsRepository, RollupService rollupService) {
+        this.symptomsRepository = symptomsRepository;
+        this.rollupService = rollupService;
+    }
+
+    /**
+     * @param zipcode Zipcode to summarize
+     * @param start   The beginning of the time window, exclusive. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window, exclusive. Measured in milliseconds from epoch.
+     * @return Per bit counts and pairwise co-occurrences of symptoms in the window
+     */
+    public SymptomSummary summarize(int zipcode, long start, long end) {
+        long[] reportCount = new long[1];
+        long[] counts = new long[Integer.SIZE];
+        long[][] cooccurrences = new long[Integer.SIZE][Integer.SIZE];
+        int[] seen = new int[1];
+
+        symptomsRepository.countBySymptoms(zipcode, start, end, (symptoms, count) -> {
+            reportCount[0] += count;
+            seen[0] |= symptoms;
+
+            // Every pair of set bits, including each bit with itself, occurred together count times
+            for (int i = symptoms; i != 0; i &= i - 1) {
+                int bit = Integer.numberOfTrailingZeros(i);
+                counts[bit] += count;
+                long[] row = cooccurrences[bit];
+                for (int j = symptoms; j != 0; j &= j - 1) {
+                    row[Integer.numberOfTrailingZeros(j)] += count;
+                }
+            }
+        });
+
+        int bits = bitsUsed(seen[0]);
+        long[][] trimmed = new long[bits][];
+        for (int i = 0; i < bits; i++) {
+            trimmed[i] = Arrays.copyOf(cooccurrences[i], bits);
+        }
+
+        return new SymptomSummary(reportCount[0], Arrays.copyOf(counts, bits), trimmed);
+    }
+
+    /**
+     * @param zipcode Zipcode to track
+     * @param span    Width of buckets to compare
+     * @param start   The beginning of the time window. Measured in milliseconds from epoch.
+     * @param end     The ending of the time window. Measured in milliseconds from epoch.
+     * @return Prevalence of each symptom per bucket and its trend over the window
+     */
+    public SymptomTrends trends(int zipcode, BucketSpan span, long start, long end) {
+        List<ReportBucket> buckets = rollupService.query(zipcode, span, start, end);
+        int size = buckets.size();
+
+        long[] bucketStarts = new long[size];
+        int[] reportCounts = new int[size];
+        int seen = 0;
+        for (int b = 0; b < size; b++) {
+            ReportBucket bucket = buckets.get(b);
+            bucketStarts[b] = bucket.getBucketStart();
+            reportCounts[b] = bucket.getReportCount();
+
+            int[] symptomCounts = bucket.getSymptomCounts();
+            for (int bit = 0; bit < symptomCounts.length; bit++) {
+                if (symptomCounts[bit] != 0) {
+                    seen |= 1 << bit;
+                }
+            }
+        }
+
+        int bits = bitsUsed(seen);
+        double[][] prevalence = new double[bits][size];
+        for (int b = 0; b < size; b++) {
+            int[] symptomCounts = buckets.get(b).getSymptomCounts();
+            double reports = reportCounts[b];
+            for (int bit = 0; bit < bits; bit++) {
+                prevalence[bit][b] = symptomCounts[bit] / reports;
+            }
+        }
+
+        // Regress against bucket offsets so gaps left by empty buckets are accounted for
+        double[] x = new double[size];
+        for (int b = 0; b < size; b++) {
+            x[b] = (double) (bucketStarts[b] - bucketStarts[0]) / span.getMillis();
+        }
+
+        double[] slopes = new double[bits];
+        for (int bit = 0; bit < bits; bit++) {
+            slopes[bit] = slope(x, prevalence[bit]);
+        }
+
+        return new SymptomTrends(span.getMillis(), bucketStarts, reportCounts, prevalence, slopes);
+    }
+
+    /**
+     * @return Least squares slope of y against x, 0 with fewer than two points
+     */
+    private static double slope(double[] x, double[] y) {
+        int n = x.length;
+        if (n < 2) {
+            return 0;
+        }
+
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < n; i++) {
+            meanX += x[i];
+            meanY += y[i];
+        }
+        meanX /= n;
+        meanY /= n;
+
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = x[i] - meanX;
+            covariance += dx * (y[i] - meanY);
+            variance += dx * dx;
+        }
+
+        return variance == 0 ? 0 : covariance / variance;
+    }
+
+    /**
+     * @param mask Union of every reported bitmask
+     * @return Number of bits needed to index the highest set bit
+     */
+    private static int bitsUsed(int mask) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(mask);
+    }
+}
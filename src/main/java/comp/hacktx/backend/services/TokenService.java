@@ -0,0 +1,149 @@
+package comp.hacktx.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import comp.hacktx.backend.models.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and verifies auth tokens with a single signing key and parser, both of which are immutable and shared across
+ * request threads. Successfully verified tokens are cached so repeat calls skip signature checks and JSON parsing.
+ */
+@Service
+public class TokenService {
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final Timer cachedVerification;
+    private final Timer parsedVerification;
+
+    @Autowired
+    public TokenService(@Value("${security.key}") String key,
+                        @Value("${security.token-cache.max-size:10000}") long maxSize,
+                        @Value("${security.token-cache.ttl-seconds:300}") long ttlSeconds,
+                        MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(key.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+        final long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        // Never keep a token cached past its own expiration
+                        if (verified.expiration == Long.MAX_VALUE) {
+                            return ttlNanos;
+                        }
+
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(
+                                verified.expiration - System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttlNanos, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(token, verified, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "tokens");
+        this.cachedVerification = Timer.builder("token.verification").tag("cache", "hit").register(meterRegistry);
+        this.parsedVerification = Timer.builder("token.verification").tag("cache", "miss").register(meterRegistry);
+    }
+
+    /**
+     * @param user User to build token for
+     * @return String representation of generated JWT
+     */
+    public String buildToken(User user) {
+        return Jwts.builder()
+                .setSubject(user.getUsername())
+                .signWith(signingKey).compact();
+    }
+
+    /**
+     * @param username Username to verify with
+     * @param token    JSON web token as String
+     * @return True if the username and token combination are verified, false otherwise.
+     */
+    public boolean verifyToken(String username, String token) {
+        String subject = verifiedSubject(token);
+        return subject != null && subject.equals(username);
+    }
+
+    /**
+     * @param token JSON web token as String
+     * @return Username the token was issued to, or null if the token is invalid or expired.
+     */
+    public String verifiedSubject(String token) {
+        long start = System.nanoTime();
+        VerifiedToken verified = verifiedTokens.getIfPresent(token);
+
+        if (verified == null) {
+            verified = parse(token);
+            parsedVerification.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            // Only valid tokens are cached so garbage tokens can't flood the cache
+            if (verified == null) {
+                return null;
+            }
+
+            verifiedTokens.put(token, verified);
+        } else {
+            cachedVerification.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        return verified.expiration > System.currentTimeMillis() ? verified.subject : null;
+    }
+
+    /**
+     * @param token JSON web token as String
+     * @return Subject and expiration of the token, or null if the token is invalid.
+     */
+    private VerifiedToken parse(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            return new VerifiedToken(claims.getSubject(), expiration == null ? Long.MAX_VALUE : expiration.getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final String subject;
+        private final long expiration;
+
+        private VerifiedToken(String subject, long expiration) {
+            this.subject = subject;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package comp.hacktx.backend.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.models.User;
+import comp.hacktx.backend.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of users by username, bounded by size and time. Entries are dropped whenever the user is written
+ * so reads never see points or streaks older than the last commit.
+ */
+@Service
+public class UserCache {
+
+    private final LoadingCache<String, User> users;
+
+    @Autowired
+    public UserCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                     @Value("${users.cache.max-size:10000}") long maxSize,
+                     @Value("${users.cache.ttl-seconds:60}") long ttlSeconds) {
+        // Missing users load as null, which Caffeine doesn't cache
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build(username -> userRepository.findByUsername(username).orElse(null));
+
+        // Exposes hits, misses, evictions and size as cache.* metrics tagged cache=users
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    /**
+     * @param username Username to look up
+     * @return The user, or null if no user has that username.
+     */
+    public User find(String username) {
+        return users.get(username);
+    }
+
+    /**
+     * @param username Username of a user that was just written
+     */
+    public void invalidate(String username) {
+        users.invalidate(username);
+    }
+
+    /**
+     * @param event Batch of reports whose point and streak updates were just committed
+     */
+    @EventListener
+    public void onReportsCommitted(ReportsCommittedEvent event) {
+        users.invalidateAll(event.getUsernames());
+    }
+}
@@ -0,0 +1,94 @@
+package comp.hacktx.backend.state;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State kept in this process only, for running a single instance. Values are immutable cells replaced with
+ * compare-and-set on the map, so updates never block. Memory is bounded, once full new keys are not stored and writes
+ * to them report success, which fails open for rate limits and falls back to the database for report checks.
+ */
+@Component
+@ConditionalOnProperty(name = "state.store", havingValue = "local", matchIfMissing = true)
+public class InProcessStateStore implements SharedStateStore {
+
+    private final ConcurrentHashMap<String, Cell> cells = new ConcurrentHashMap<>();
+    private final int maxKeys;
+
+    /**
+     * @param maxKeys Maximum number of keys held at once
+     */
+    @Autowired
+    public InProcessStateStore(@Value("${state.local.max-keys:1000000}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public long get(String key) {
+        Cell cell = cells.get(key);
+        return cell == null || cell.isExpired(System.currentTimeMillis()) ? 0 : cell.value;
+    }
+
+    @Override
+    public boolean compareAndSet(String key, long expected, long update, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Cell updated = new Cell(update, now + ttlMillis);
+        Cell cell = cells.get(key);
+
+        if (cell == null) {
+            if (expected != 0) {
+                return false;
+            }
+            if (cells.size() >= maxKeys) {
+                return true;
+            }
+            return cells.putIfAbsent(key, updated) == null;
+        }
+
+        // An expired cell counts as absent
+        long current = cell.isExpired(now) ? 0 : cell.value;
+        return current == expected && cells.replace(key, cell, updated);
+    }
+
+    @Override
+    public void max(String key, long value, long ttlMillis) {
+        while (true) {
+            long current = get(key);
+            if (current >= value) {
+                return;
+            }
+            if (compareAndSet(key, current, value, ttlMillis)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops expired cells so memory only holds live state.
+     */
+    @Scheduled(fixedDelayString = "${state.local.purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        cells.values().removeIf(cell -> cell.isExpired(now));
+    }
+
+    private static class Cell {
+
+        private final long value;
+        private final long expiresAt;
+
+        private Cell(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
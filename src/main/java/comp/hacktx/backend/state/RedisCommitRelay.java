@@ -0,0 +1,180 @@
+package comp.hacktx.backend.state;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import comp.hacktx.backend.codecs.ColumnarReportCodec;
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.events.UserRegisteredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Relays commits between instances over Redis pub/sub when state.store=redis. Locally committed report batches and
+ * registrations are published on one channel, and messages from other instances are republished here as remote events,
+ * so caches, the leaderboard and heatmap subscribers on every instance see every commit.
+ * <p>
+ * Pub/sub delivers at most once, messages published while an instance is disconnected from Redis are lost to it.
+ */
+@Component
+@ConditionalOnProperty(name = "state.store", havingValue = "redis")
+public class RedisCommitRelay implements MessageListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisCommitRelay.class);
+
+    private static final String REPORTS = "reports";
+    private static final String REGISTERED = "registered";
+
+    // Identifies messages this instance published, so they aren't applied twice
+    private final String origin = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+
+    @Autowired
+    public RedisCommitRelay(StringRedisTemplate redisTemplate, ApplicationEventPublisher eventPublisher,
+                            ObjectMapper objectMapper, @Value("${state.redis.prefix:hacktx:}") String prefix) {
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.channel = prefix + "commits";
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * @param event Batch of reports that was just committed
+     */
+    @EventListener
+    public void onReportsCommitted(ReportsCommittedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+
+        CommitMessage message = new CommitMessage();
+        message.setOrigin(origin);
+        message.setType(REPORTS);
+        message.setTime(event.getTime());
+        message.setUsernames(event.getUsernames());
+        message.setReports(ColumnarReportCodec.encode(event.getReports()));
+        publish(message);
+    }
+
+    /**
+     * @param event User that was just registered
+     */
+    @EventListener
+    public void onUserRegistered(UserRegisteredEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+
+        CommitMessage message = new CommitMessage();
+        message.setOrigin(origin);
+        message.setType(REGISTERED);
+        message.setUsernames(Collections.singletonList(event.getUsername()));
+        publish(message);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CommitMessage commit;
+        try {
+            commit = objectMapper.readValue(message.getBody(), CommitMessage.class);
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring malformed commit message", e);
+            return;
+        }
+
+        if (origin.equals(commit.getOrigin())) {
+            return;
+        }
+
+        if (REPORTS.equals(commit.getType())) {
+            eventPublisher.publishEvent(new ReportsCommittedEvent(ColumnarReportCodec.decode(commit.getReports()),
+                    commit.getUsernames(), commit.getTime(), true));
+        } else if (REGISTERED.equals(commit.getType())) {
+            for (String username : commit.getUsernames()) {
+                eventPublisher.publishEvent(new UserRegisteredEvent(username, true));
+            }
+        }
+    }
+
+    private void publish(CommitMessage message) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+        } catch (IOException | DataAccessException e) {
+            // The commit is durable, other instances catch up through cache expiry and reconciliation
+            LOGGER.warn("Failed to relay commit to other instances", e);
+        }
+    }
+
+    /**
+     * Wire format of a relayed commit, reports use the columnar encoding.
+     */
+    public static class CommitMessage {
+
+        private String origin;
+        private String type;
+        private long time;
+        private List<String> usernames;
+        private byte[] reports;
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public void setOrigin(String origin) {
+            this.origin = origin;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public void setTime(long time) {
+            this.time = time;
+        }
+
+        public List<String> getUsernames() {
+            return usernames;
+        }
+
+        public void setUsernames(List<String> usernames) {
+            this.usernames = usernames;
+        }
+
+        public byte[] getReports() {
+            return reports;
+        }
+
+        public void setReports(byte[] reports) {
+            this.reports = reports;
+        }
+    }
+}
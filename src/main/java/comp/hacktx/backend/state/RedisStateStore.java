@@ -0,0 +1,63 @@
+package comp.hacktx.backend.state;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * State shared between instances through Redis, configured with the usual spring.redis.* settings. Conditional updates
+ * run as Lua scripts so each is a single atomic round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "state.store", havingValue = "redis")
+public class RedisStateStore implements SharedStateStore {
+
+    private static final RedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+                    + "if (current == false and ARGV[1] == '0') or current == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 end "
+                    + "return 0", Long.class);
+
+    private static final RedisScript<Long> MAX = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+                    + "if current == false or tonumber(ARGV[1]) > tonumber(current) then "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end "
+                    + "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String prefix;
+
+    /**
+     * @param prefix Prefix of every key, so several deployments can share a Redis
+     */
+    @Autowired
+    public RedisStateStore(StringRedisTemplate redisTemplate, @Value("${state.redis.prefix:hacktx:}") String prefix) {
+        this.redisTemplate = redisTemplate;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public long get(String key) {
+        String value = redisTemplate.opsForValue().get(prefix + key);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    @Override
+    public boolean compareAndSet(String key, long expected, long update, long ttlMillis) {
+        Long result = redisTemplate.execute(COMPARE_AND_SET, Collections.singletonList(prefix + key),
+                Long.toString(expected), Long.toString(update), Long.toString(Math.max(1, ttlMillis)));
+        return result != null && result == 1;
+    }
+
+    @Override
+    public void max(String key, long value, long ttlMillis) {
+        redisTemplate.execute(MAX, Collections.singletonList(prefix + key), Long.toString(value),
+                Long.toString(Math.max(1, ttlMillis)));
+    }
+}
@@ -0,0 +1,35 @@
+package comp.hacktx.backend.state;
+
+/**
+ * Hot state that every instance of the application must agree on, such as rate limit buckets and last report times.
+ * Values are longs under string keys, each expiring after its own time to live. Implementations are selected with
+ * state.store, either "local" to keep state in process for a single instance or "redis" to share it between instances.
+ */
+public interface SharedStateStore {
+
+    /**
+     * @param key Key to look up
+     * @return Current value, or 0 if the key is absent or expired
+     */
+    long get(String key);
+
+    /**
+     * Atomically replaces the value if it still holds the expected one.
+     *
+     * @param key       Key to update
+     * @param expected  Value the key must hold, 0 meaning the key must be absent or expired
+     * @param update    New value
+     * @param ttlMillis How long the new value lives, in milliseconds
+     * @return Whether the value was replaced
+     */
+    boolean compareAndSet(String key, long expected, long update, long ttlMillis);
+
+    /**
+     * Atomically raises the value, leaving it unchanged if it is already at least as large.
+     *
+     * @param key       Key to update
+     * @param value     Candidate value
+     * @param ttlMillis How long the value lives once raised, in milliseconds
+     */
+    void max(String key, long value, long ttlMillis);
+}
@@ -0,0 +1,139 @@
+package comp.hacktx.backend.benchmarks;
+
+import comp.hacktx.backend.services.IdGenerator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares batched report inserts keyed by the old decimal String ids against bigint ids from {@link IdGenerator}.
+ * Runs against in-memory H2 by default. Pass -Dbenchmark.jdbc.url (and .user/.password) to run against a local
+ * PostgreSQL, in which case the primary key index size per row of each variant is reported as the indexBytesPerRow
+ * counter of insertBatch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Generator {
+
+        private IdGenerator idGenerator;
+
+        @Setup
+        public void setup() {
+            idGenerator = new IdGenerator(1, "local");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Table {
+
+        @Param({"varchar", "bigint"})
+        public String idType;
+
+        private Connection connection;
+        private PreparedStatement insert;
+        private boolean postgres;
+
+        @Setup
+        public void setup() throws SQLException {
+            String url = System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:ids;DB_CLOSE_DELAY=-1");
+            connection = DriverManager.getConnection(url, System.getProperty("benchmark.jdbc.user", "sa"),
+                    System.getProperty("benchmark.jdbc.password", ""));
+            postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+
+            String idColumn = "varchar".equals(idType) ? "varchar(255)" : "bigint";
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop table if exists ids_benchmark");
+                statement.execute("create table ids_benchmark (id " + idColumn + " primary key, time bigint, "
+                        + "zipcode integer, symptoms integer)");
+            }
+
+            insert = connection.prepareStatement(
+                    "insert into ids_benchmark (id, time, zipcode, symptoms) values (?, ?, ?, ?)");
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop table ids_benchmark");
+            }
+            connection.close();
+        }
+    }
+
+    /**
+     * Primary key index size after each iteration, left at 0 on databases other than PostgreSQL.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class IndexSize {
+
+        public double indexBytesPerRow;
+
+        @TearDown(Level.Iteration)
+        public void measure(Table table) throws SQLException {
+            if (!table.postgres) {
+                return;
+            }
+
+            try (Statement statement = table.connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "select pg_indexes_size('ids_benchmark'), count(*) from ids_benchmark")) {
+                resultSet.next();
+                indexBytesPerRow = resultSet.getLong(2) == 0 ? 0 : (double) resultSet.getLong(1) / resultSet.getLong(2);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int[] insertBatch(Table table, Generator generator, IndexSize indexSize) throws SQLException {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if ("varchar".equals(table.idType)) {
+                table.insert.setString(1, Long.toString(System.nanoTime()));
+            } else {
+                table.insert.setLong(1, generator.idGenerator.nextId());
+            }
+            table.insert.setLong(2, now);
+            table.insert.setInt(3, 78701);
+            table.insert.setInt(4, i);
+            table.insert.addBatch();
+        }
+
+        return table.insert.executeBatch();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long generateId(Generator generator) {
+        return generator.idGenerator.nextId();
+    }
+}
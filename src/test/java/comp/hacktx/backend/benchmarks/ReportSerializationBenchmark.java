@@ -0,0 +1,90 @@
+package comp.hacktx.backend.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import comp.hacktx.backend.codecs.ColumnarReportCodec;
+import comp.hacktx.backend.models.Report;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes report lists the same way getReports responds, a singleton map wrapping the list, as JSON or in the
+ * columnar encoding, with and without gzip. Encoded sizes are compared in ColumnarReportCodecTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Report> reports;
+    private Object response;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+
+        Random random = new Random(42);
+        long time = 1603000000000L;
+        reports = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            time += random.nextInt(60000);
+            reports.add(new Report(i, time, 78701 + random.nextInt(50),
+                    random.nextInt(1 << 8)));
+        }
+
+        response = Collections.singletonMap("reports", reports);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(response));
+    }
+
+    @Benchmark
+    public byte[] serializeColumnar() {
+        return ColumnarReportCodec.encode(reports);
+    }
+
+    @Benchmark
+    public byte[] serializeColumnarGzip() throws IOException {
+        return gzip(ColumnarReportCodec.encode(reports));
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,123 @@
+package comp.hacktx.backend.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the getReports range query on a reports table with and without the composite (zipcode, time) index.
+ * Runs against in-memory H2 by default. Pass -Dbenchmark.jdbc.url (and .user/.password) to run against a local
+ * PostgreSQL instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportsQueryBenchmark {
+
+    private static final long START = 1577836800000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final int ZIPCODES = 200;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement query;
+    private Random random;
+
+    @Setup
+    public void setup() throws SQLException {
+        String url = System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:reports;DB_CLOSE_DELAY=-1");
+        connection = DriverManager.getConnection(url, System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists reports_benchmark");
+            statement.execute("create table reports_benchmark (id varchar(255) primary key, time bigint, "
+                    + "zipcode integer, symptoms integer)");
+        }
+
+        // A year of reports spread over a few hundred zipcodes
+        random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into reports_benchmark (id, time, zipcode, symptoms) values (?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, Long.toString(START + i));
+                insert.setLong(2, START + (long) (random.nextDouble() * 365 * DAY));
+                insert.setInt(3, 78000 + random.nextInt(ZIPCODES));
+                insert.setInt(4, random.nextInt(1 << 8));
+                insert.addBatch();
+
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        if (indexed) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create index reports_benchmark_zipcode_time_idx "
+                        + "on reports_benchmark (zipcode, time)");
+            }
+        }
+
+        query = connection.prepareStatement("select id, time, zipcode, symptoms from reports_benchmark "
+                + "where time < ? and time > ? and zipcode = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table reports_benchmark");
+        }
+        connection.close();
+    }
+
+    /**
+     * A week long window for one zipcode, like a dashboard query.
+     */
+    @Benchmark
+    public int weekWindow() throws SQLException {
+        long from = START + (long) (random.nextDouble() * 358 * DAY);
+        query.setLong(1, from + 7 * DAY);
+        query.setLong(2, from);
+        query.setInt(3, 78000 + random.nextInt(ZIPCODES));
+
+        int count = 0;
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+package comp.hacktx.backend.benchmarks;
+
+import comp.hacktx.backend.models.User;
+import comp.hacktx.backend.services.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBenchmark {
+
+    private static final String KEY = "benchmark-signing-key-that-is-at-least-256-bits";
+
+    private User user;
+    private String token;
+    private TokenService tokenService;
+    private TokenService uncachedTokenService;
+
+    @Setup
+    public void setup() {
+        user = new User(1, "benchmark_user", "", 0, 0, 0);
+        tokenService = new TokenService(KEY, 10000, 300, new SimpleMeterRegistry());
+        token = tokenService.buildToken(user);
+        uncachedTokenService = new TokenService(KEY, 0, 300, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public String buildTokenService() {
+        return tokenService.buildToken(user);
+    }
+
+    @Benchmark
+    public boolean verifyTokenServiceUncached() {
+        return uncachedTokenService.verifyToken(user.getUsername(), token);
+    }
+
+    @Benchmark
+    public boolean verifyTokenServiceCached() {
+        return tokenService.verifyToken(user.getUsername(), token);
+    }
+}
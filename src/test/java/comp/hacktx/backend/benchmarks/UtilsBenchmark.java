@@ -0,0 +1,63 @@
+package comp.hacktx.backend.benchmarks;
+
+import comp.hacktx.backend.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each input set lives in its own state, so every benchmark only runs over the params it uses instead of the cross
+ * product of all of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Usernames {
+
+        @Param({"user_1234", "not a valid username!"})
+        public String username;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Passwords {
+
+        @Param({"correct horse battery staple", "abc"})
+        public String password;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Numbers {
+
+        @Param({"78701", "1603000000000", "12a45"})
+        public String number;
+    }
+
+    @Benchmark
+    public boolean validateUsername(Usernames input) {
+        return Utils.validateUsername(input.username);
+    }
+
+    @Benchmark
+    public boolean validatePassword(Passwords input) {
+        return Utils.validatePassword(input.password);
+    }
+
+    @Benchmark
+    public long parseNonNegativeLong(Numbers input) {
+        return Utils.parseNonNegativeLong(input.number);
+    }
+}
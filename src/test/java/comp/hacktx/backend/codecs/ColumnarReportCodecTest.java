@@ -0,0 +1,111 @@
+package comp.hacktx.backend.codecs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import comp.hacktx.backend.models.Report;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarReportCodecTest {
+
+    @Test
+    void roundTripsEmptyList() {
+        assertEquals(0, ColumnarReportCodec.decode(ColumnarReportCodec.encode(Collections.emptyList())).size());
+    }
+
+    @Test
+    void roundTripsReportsOutOfOrder() {
+        // Times, zipcodes and ids going backwards make for negative deltas
+        List<Report> reports = Arrays.asList(
+                new Report(500, 1603000060000L, 78712, 3),
+                new Report(20, 1603000000000L, 78701, 0),
+                new Report(7, 1602999999999L, 10001, 255),
+                new Report(7, 1602999999999L, 99950, 1));
+
+        assertReportsEqual(reports, ColumnarReportCodec.decode(ColumnarReportCodec.encode(reports)));
+    }
+
+    @Test
+    void roundTripsFullRangeValues() {
+        // Deltas between these overflow a long, which must wrap back on decode
+        List<Report> reports = Arrays.asList(
+                new Report(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, -1),
+                new Report(0, 0, 0, Integer.MIN_VALUE),
+                new Report(Long.MIN_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE),
+                new Report(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 0));
+
+        assertReportsEqual(reports, ColumnarReportCodec.decode(ColumnarReportCodec.encode(reports)));
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] encoded = ColumnarReportCodec.encode(randomReports(100));
+
+        for (int length : new int[]{0, 1, 2, encoded.length / 2, encoded.length - 1}) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> ColumnarReportCodec.decode(truncated));
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] encoded = ColumnarReportCodec.encode(randomReports(1));
+        encoded[0] = 2;
+
+        assertThrows(IllegalArgumentException.class, () -> ColumnarReportCodec.decode(encoded));
+    }
+
+    @Test
+    void rejectsCountLargerThanData() {
+        // Version 1 followed by a count of 2^21 - 1
+        byte[] data = {1, (byte) 0xFF, (byte) 0xFF, 0x7F};
+
+        assertThrows(IllegalArgumentException.class, () -> ColumnarReportCodec.decode(data));
+    }
+
+    @Test
+    void isSmallerThanJson() throws Exception {
+        List<Report> reports = randomReports(1000);
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(Collections.singletonMap("reports", reports));
+        byte[] columnar = ColumnarReportCodec.encode(reports);
+
+        assertTrue(columnar.length * 4 < json.length, "columnar=" + columnar.length + ", json=" + json.length);
+    }
+
+    /**
+     * @return Reports as a day of traffic would produce them, close in time with ids from one generator
+     */
+    private static List<Report> randomReports(int count) {
+        Random random = new Random(42);
+        List<Report> reports = new ArrayList<>(count);
+        long time = 1603000000000L;
+        long id = 0x1234_5678_9ABCL << 22;
+
+        for (int i = 0; i < count; i++) {
+            time += random.nextInt(60000);
+            id += 1 + random.nextInt(1 << 22);
+            reports.add(new Report(id, time, 78701 + random.nextInt(50), random.nextInt(1 << 8)));
+        }
+
+        return reports;
+    }
+
+    private static void assertReportsEqual(List<Report> expected, List<Report> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getTime(), actual.get(i).getTime());
+            assertEquals(expected.get(i).getZipcode(), actual.get(i).getZipcode());
+            assertEquals(expected.get(i).getSymptoms(), actual.get(i).getSymptoms());
+        }
+    }
+}
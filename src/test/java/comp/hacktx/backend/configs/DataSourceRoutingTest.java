@@ -0,0 +1,86 @@
+package comp.hacktx.backend.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import comp.hacktx.backend.models.User;
+import comp.hacktx.backend.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Points both pools at the same embedded database and checks which pool hands out the connection.
+ */
+@SpringBootTest(properties = {
+        "security.key=data-source-routing-test-signing-key-long-enough-for-hs256",
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.hikari.maximum-pool-size=1",
+        "app.datasource.replica.hikari.connection-timeout=250"
+})
+class DataSourceRoutingTest {
+
+    @Autowired
+    private DataSourceConfiguration.Pools pools;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        HikariDataSource replica = pools.getReplica();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.execute(status -> {
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            assertEquals(1, replica.getHikariPoolMXBean().getActiveConnections());
+            return null;
+        });
+    }
+
+    @Test
+    void readWriteTransactionsUsePrimary() {
+        HikariDataSource primary = pools.getPrimary();
+        HikariDataSource replica = pools.getReplica();
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            assertTrue(primary.getHikariPoolMXBean().getActiveConnections() >= 1);
+            assertEquals(0, activeConnections(replica));
+            return null;
+        });
+    }
+
+    @Test
+    void userLookupsReadTheirOwnWrites() throws Exception {
+        userRepository.save(new User(42, "routing", "hash", 0, 0, 0));
+
+        // With the replica's only connection taken, a lookup routed there would time out
+        try (Connection held = pools.getReplica().getConnection()) {
+            assertTrue(userRepository.findByUsername("routing").isPresent());
+            assertTrue(userRepository.existsByUsername("routing"));
+        }
+    }
+
+    /**
+     * @return Connections in use, 0 if the pool was never started
+     */
+    private static int activeConnections(HikariDataSource dataSource) {
+        return dataSource.getHikariPoolMXBean() == null ? 0 : dataSource.getHikariPoolMXBean().getActiveConnections();
+    }
+}
@@ -0,0 +1,80 @@
+package comp.hacktx.backend.controllers;
+
+import comp.hacktx.backend.models.Report;
+import comp.hacktx.backend.repositories.SymptomsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that cached records responses still get gzipped by Tomcat and revalidate against their ETag.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "security.key=records-compression-test-signing-key-long-enough-for-hs256"
+})
+class RecordsCompressionTest {
+
+    private static final int ZIPCODE = 78712;
+    private static final int REPORTS = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SymptomsRepository symptomsRepository;
+
+    @BeforeEach
+    void insertReports() {
+        // Well past server.compression.min-response-size once serialized
+        List<Report> reports = new ArrayList<>(REPORTS);
+        for (int i = 1; i <= REPORTS; i++) {
+            reports.add(new Report(ZIPCODE * 100_000L + i, 1_000L + i, ZIPCODE, i & 0xff));
+        }
+        symptomsRepository.insertAll(reports);
+    }
+
+    @Test
+    void gzipsRecordsAndAnswersNotModified() throws IOException {
+        HttpURLConnection first = open();
+        assertEquals(200, first.getResponseCode());
+        assertEquals("gzip", first.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+
+        String etag = first.getHeaderField(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        try (InputStream body = new GZIPInputStream(first.getInputStream())) {
+            byte[] buffer = new byte[8192];
+            long length = 0;
+            for (int read; (read = body.read(buffer)) != -1; ) {
+                length += read;
+            }
+            assertTrue(length > 2048, "decompressed " + length + " bytes");
+        }
+
+        HttpURLConnection revalidated = open();
+        revalidated.setRequestProperty(HttpHeaders.IF_NONE_MATCH, etag);
+        assertEquals(304, revalidated.getResponseCode());
+    }
+
+    private HttpURLConnection open() throws IOException {
+        URL url = new URL("http://localhost:" + port + "/api/records/" + ZIPCODE + "/0/1000000");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT, "application/json");
+        connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return connection;
+    }
+}
@@ -0,0 +1,467 @@
+package comp.hacktx.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import comp.hacktx.backend.models.User;
+import comp.hacktx.backend.repositories.UserRepository;
+import comp.hacktx.backend.services.IdGenerator;
+import comp.hacktx.backend.services.PasswordHasher;
+import comp.hacktx.backend.services.TokenService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a mix of register, login, report, records and points calls against the app on an embedded database, then
+ * compares throughput and latency percentiles per endpoint with a stored baseline. Reports are split into first
+ * reports of fresh users, which take the full ingestion path, and repeat reports rejected by the 24 hour rule.
+ * <p>
+ * Excluded from the default build, run it with: mvn -Pload-test test. Tune with -Dloadtest.threads,
+ * -Dloadtest.warmup-seconds, -Dloadtest.duration-seconds and -Dloadtest.tolerance, and record a new baseline on the
+ * reference machine with -Dloadtest.update-baseline=true. Until a baseline is recorded only error rates are checked,
+ * once one is every endpoint must have an entry in it. Results are written to target/load-test-result.json.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "security.key=load-test-signing-key-that-is-long-enough-for-hs256",
+        // Every simulated client shares one address
+        "ratelimit.address.rate=1000000",
+        "ratelimit.address.burst=1000000",
+        "ratelimit.credentials.rate=1000000",
+        "ratelimit.credentials.burst=1000000",
+        "ratelimit.user.rate=1000000",
+        "ratelimit.user.burst=1000000",
+        "ratelimit.lookup.rate=1000000",
+        "ratelimit.lookup.burst=1000000",
+        "security.hashing.queue-size=1024",
+        "reports.ingestion.queue-capacity=10000"
+})
+class ApiLoadTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiLoadTest.class);
+
+    private static final String PASSWORD = "load-test-password";
+    private static final int FIRST_ZIPCODE = 78701;
+    private static final int ZIPCODES = 50;
+
+    private enum Endpoint {
+        REGISTER(5),
+        LOGIN(10),
+        REPORT(15),
+        REPORT_REPEAT(5),
+        RECORDS(45),
+        POINTS(20);
+
+        private final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Value("${loadtest.threads:32}")
+    private int threads;
+
+    @Value("${loadtest.users:200}")
+    private int users;
+
+    @Value("${loadtest.report-users:50000}")
+    private int reportUsers;
+
+    @Value("${loadtest.warmup-seconds:10}")
+    private int warmupSeconds;
+
+    @Value("${loadtest.duration-seconds:30}")
+    private int durationSeconds;
+
+    @Value("${loadtest.tolerance:0.2}")
+    private double tolerance;
+
+    @Value("${loadtest.max-error-rate:0.01}")
+    private double maxErrorRate;
+
+    @Value("${loadtest.baseline:src/test/resources/loadtest/baseline.json}")
+    private String baselinePath;
+
+    @Value("${loadtest.update-baseline:false}")
+    private boolean updateBaseline;
+
+    private final AtomicInteger userCounter = new AtomicInteger();
+    private AtomicReferenceArray<SimulatedUser> pool;
+
+    // Users that haven't reported yet, each taken by exactly one report
+    private final Queue<SimulatedUser> freshUsers = new ConcurrentLinkedQueue<>();
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+
+    @Test
+    void meetsBaseline() throws Exception {
+        for (Endpoint endpoint : Endpoint.values()) {
+            // Microseconds, up to a minute at 3 significant digits
+            latencies.put(endpoint, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+            errors.put(endpoint, new LongAdder());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            seedUsers(executor);
+            seedReportUsers();
+            run(executor, warmupSeconds);
+
+            for (Endpoint endpoint : Endpoint.values()) {
+                latencies.get(endpoint).reset();
+                errors.get(endpoint).reset();
+            }
+            run(executor, durationSeconds);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ObjectNode result = summarize();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File("target/load-test-result.json"), result);
+        LOGGER.info("Load test result:\n{}", objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result));
+
+        if (updateBaseline) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(baselinePath), result);
+            return;
+        }
+
+        JsonNode baseline = objectMapper.readTree(new File(baselinePath));
+        if (baseline.path("endpoints").size() == 0) {
+            LOGGER.warn("No load test baseline recorded in {}, only checking error rates. Record one on the reference "
+                    + "machine with -Dloadtest.update-baseline=true", baselinePath);
+        }
+
+        List<String> regressions = compare(result, baseline);
+        assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+    }
+
+    /**
+     * Registers the initial user pool in parallel.
+     */
+    private void seedUsers(ExecutorService executor) throws Exception {
+        pool = new AtomicReferenceArray<>(users);
+
+        List<Future<?>> futures = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            int slot = i;
+            futures.add(executor.submit(() -> {
+                SimulatedUser user = register();
+                if (user == null) {
+                    throw new IllegalStateException("Could not register seed user");
+                }
+                pool.set(slot, user);
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    /**
+     * Inserts users for first reports straight into the database, sharing one password hash, so creating them costs
+     * neither BCrypt work nor load on the measured endpoints.
+     */
+    private void seedReportUsers() throws Exception {
+        String hashedPassword = passwordHasher.hash(PASSWORD).get();
+
+        List<User> batch = new ArrayList<>(1000);
+        for (int i = 0; i < reportUsers; i++) {
+            User user = new User(idGenerator.nextId(), "fresh" + i, hashedPassword, 0, 0, 0);
+            batch.add(user);
+            freshUsers.add(new SimulatedUser(user.getUsername(), tokenService.buildToken(user)));
+
+            if (batch.size() == 1000) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        userRepository.saveAll(batch);
+    }
+
+    /**
+     * Keeps every thread issuing requests for the given number of seconds.
+     */
+    private void run(ExecutorService executor, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    call(pick());
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private Endpoint pick() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        for (Endpoint endpoint : Endpoint.values()) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        return Endpoint.RECORDS;
+    }
+
+    /**
+     * Issues one request, recording its latency and whether it failed.
+     */
+    private void call(Endpoint endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SimulatedUser user = pool.get(random.nextInt(users));
+
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            switch (endpoint) {
+                case REGISTER:
+                    // Fresh users replace old ones so reports keep being accepted
+                    SimulatedUser registered = register();
+                    ok = registered != null;
+                    if (ok) {
+                        pool.set(random.nextInt(users), registered);
+                    }
+                    break;
+                case LOGIN:
+                    ok = login(user.username) != null;
+                    break;
+                case REPORT:
+                    // Running out of fresh users shows up as errors, raise loadtest.report-users if it happens
+                    SimulatedUser fresh = freshUsers.poll();
+                    ok = fresh != null && report(fresh, random) == HttpStatus.OK;
+                    break;
+                case REPORT_REPEAT:
+                    // Seed users report again and again, so after their first report they take the rejection path
+                    ok = report(user, random) != null;
+                    break;
+                case RECORDS:
+                    ok = records(random);
+                    break;
+                default:
+                    ok = restTemplate.getForEntity("/api/points/" + user.username, String.class)
+                            .getStatusCode() == HttpStatus.OK;
+                    break;
+            }
+        } catch (RuntimeException e) {
+            ok = false;
+        }
+
+        latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        if (!ok) {
+            errors.get(endpoint).increment();
+        }
+    }
+
+    /**
+     * @return Newly registered user, or null on failure
+     */
+    private SimulatedUser register() {
+        String username = "load" + userCounter.incrementAndGet();
+        String token = token(restTemplate.postForEntity("/api/register", credentials(username), String.class));
+        return token == null ? null : new SimulatedUser(username, token);
+    }
+
+    /**
+     * @return Token of the logged in user, or null on failure
+     */
+    private String login(String username) {
+        return token(restTemplate.postForEntity("/api/login", credentials(username), String.class));
+    }
+
+    /**
+     * @return OK if the report was accepted, BAD_REQUEST if rejected by the 24 hour rule, or null on any other outcome
+     */
+    private HttpStatus report(SimulatedUser user, ThreadLocalRandom random) {
+        Map<String, String> body = new HashMap<>();
+        body.put("username", user.username);
+        body.put("zipcode", String.valueOf(FIRST_ZIPCODE + random.nextInt(ZIPCODES)));
+        body.put("symptoms", String.valueOf(random.nextInt(1 << 8)));
+
+        HttpHeaders headers = new HttpHeaders();
+        // The controller looks the header up by its lower case name
+        headers.set("authorization", "Bearer " + user.token);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/report", new HttpEntity<>(body, headers),
+                String.class);
+        if (response.getStatusCode() == HttpStatus.OK) {
+            return HttpStatus.OK;
+        }
+        if (response.getStatusCode() == HttpStatus.BAD_REQUEST && response.getBody() != null
+                && response.getBody().contains("Must wait 24 hours")) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        return null;
+    }
+
+    /**
+     * Queries the last day of a random zipcode, with windows aligned to the minute as a dashboard would poll them.
+     */
+    private boolean records(ThreadLocalRandom random) {
+        long end = System.currentTimeMillis() / 60000 * 60000 + 60000;
+        long start = end - TimeUnit.DAYS.toMillis(1);
+        int zipcode = FIRST_ZIPCODE + random.nextInt(ZIPCODES);
+
+        return restTemplate.getForEntity("/api/records/" + zipcode + "/" + start + "/" + end, String.class)
+                .getStatusCode() == HttpStatus.OK;
+    }
+
+    private Map<String, String> credentials(String username) {
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", username);
+        credentials.put("password", PASSWORD);
+        return credentials;
+    }
+
+    private String token(ResponseEntity<String> response) {
+        if (response.getStatusCode() != HttpStatus.OK) {
+            return null;
+        }
+
+        try {
+            JsonNode token = objectMapper.readTree(response.getBody()).get("token");
+            return token == null ? null : token.asText();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Throughput, error rate and latency percentiles in milliseconds for each endpoint
+     */
+    private ObjectNode summarize() {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("threads", threads);
+        result.put("durationSeconds", durationSeconds);
+
+        ObjectNode endpoints = result.putObject("endpoints");
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            long requests = histogram.getTotalCount();
+
+            ObjectNode node = endpoints.putObject(endpoint.name().toLowerCase());
+            node.put("requests", requests);
+            node.put("throughput", (double) requests / durationSeconds);
+            node.put("errorRate", requests == 0 ? 0 : errors.get(endpoint).doubleValue() / requests);
+            node.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+            node.put("p95Ms", histogram.getValueAtPercentile(95) / 1000.0);
+            node.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+            node.put("maxMs", histogram.getMaxValue() / 1000.0);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return Description of every metric that regressed past the tolerance, empty if none did
+     */
+    private List<String> compare(JsonNode result, JsonNode baseline) {
+        List<String> regressions = new ArrayList<>();
+        boolean recorded = baseline.path("endpoints").size() > 0;
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            String name = endpoint.name().toLowerCase();
+            JsonNode current = result.path("endpoints").path(name);
+
+            double errorRate = current.path("errorRate").asDouble();
+            if (errorRate > maxErrorRate) {
+                regressions.add(String.format("%s error rate %.4f exceeds %.4f", name, errorRate, maxErrorRate));
+            }
+
+            if (!recorded) {
+                continue;
+            }
+
+            JsonNode expected = baseline.path("endpoints").path(name);
+            if (expected.isMissingNode()) {
+                regressions.add(name + " has no baseline, record one with -Dloadtest.update-baseline=true");
+                continue;
+            }
+
+            double throughput = current.path("throughput").asDouble();
+            double minThroughput = expected.path("throughput").asDouble() * (1 - tolerance);
+            if (throughput < minThroughput) {
+                regressions.add(String.format("%s throughput %.1f/s is below %.1f/s", name, throughput,
+                        minThroughput));
+            }
+
+            for (String percentile : new String[]{"p95Ms", "p99Ms"}) {
+                double latency = current.path(percentile).asDouble();
+                double maxLatency = expected.path(percentile).asDouble() * (1 + tolerance);
+                if (latency > maxLatency) {
+                    regressions.add(String.format("%s %s %.2fms exceeds %.2fms", name, percentile, latency,
+                            maxLatency));
+                }
+            }
+        }
+
+        return regressions;
+    }
+
+    private static class SimulatedUser {
+
+        private final String username;
+        private final String token;
+
+        private SimulatedUser(String username, String token) {
+            this.username = username;
+            this.token = token;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package comp.hacktx.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdGeneratorTest {
+
+    private static final long EPOCH = 1577836800000L;
+    private static final long NOW = EPOCH + 1_000_000L;
+
+    @Test
+    void encodesTimestampNodeAndSequence() {
+        IdGenerator generator = new IdGenerator(5, () -> NOW);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertEquals(NOW - EPOCH, first >>> 22);
+        assertEquals(5, (first >>> 12) & 1023);
+        assertEquals(0, first & 4095);
+        assertEquals(1, second & 4095);
+    }
+
+    @Test
+    void sequenceOverflowCarriesIntoTimestamp() {
+        IdGenerator generator = new IdGenerator(5, () -> NOW);
+
+        long previous = generator.nextId();
+        for (int i = 1; i < 4096; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+
+        // 4097th id within the same millisecond borrows the next one
+        long carried = generator.nextId();
+        assertTrue(carried > previous);
+        assertEquals(NOW - EPOCH + 1, carried >>> 22);
+        assertEquals(5, (carried >>> 12) & 1023);
+        assertEquals(0, carried & 4095);
+    }
+
+    @Test
+    void staysIncreasingWhenClockGoesBackwards() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(5, clock::get);
+
+        long before = generator.nextId();
+        clock.set(NOW - 10_000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(NOW - EPOCH, after >>> 22);
+
+        // Ids keep increasing until the clock catches up again
+        clock.set(NOW + 1);
+        assertTrue(generator.nextId() > after);
+    }
+
+    @Test
+    void distinctNodesNeverCollide() {
+        IdGenerator first = new IdGenerator(1, () -> NOW);
+        IdGenerator second = new IdGenerator(2, () -> NOW);
+
+        for (int i = 0; i < 4096; i++) {
+            assertTrue(first.nextId() != second.nextId());
+        }
+    }
+
+    @Test
+    void rejectsNodeOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(1024, () -> NOW));
+    }
+
+    @Test
+    void requiresNodeWhenInstancesShareState() {
+        assertThrows(IllegalStateException.class, () -> new IdGenerator(-1, "redis"));
+        assertEquals(7, (new IdGenerator(7, "redis").nextId() >>> 12) & 1023);
+    }
+}
@@ -0,0 +1,127 @@
+package comp.hacktx.backend.services;
+
+import comp.hacktx.backend.events.ReportsCommittedEvent;
+import comp.hacktx.backend.events.UserRegisteredEvent;
+import comp.hacktx.backend.models.LeaderboardEntry;
+import comp.hacktx.backend.repositories.UserRepository;
+import comp.hacktx.backend.repositories.UserScore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeaderboardTest {
+
+    private UserRepository userRepository;
+    private Leaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        leaderboard = new Leaderboard(userRepository);
+
+        when(userRepository.findAllScores()).thenReturn(Arrays.asList(
+                score("alice", 300), score("bob", 200), score("carol", 200), score("dave", 100)));
+        leaderboard.rebuild();
+    }
+
+    @Test
+    void tiesShareRankAndOrderByUsername() {
+        assertEntries(leaderboard.top(4), "1 alice 300", "2 bob 200", "2 carol 200", "4 dave 100");
+
+        assertEquals(2, leaderboard.rank("bob").getRank());
+        assertEquals(2, leaderboard.rank("carol").getRank());
+        assertEquals(4, leaderboard.rank("dave").getRank());
+    }
+
+    @Test
+    void topStopsAtRequestedCountAndAvailableUsers() {
+        assertEquals(0, leaderboard.top(0).size());
+        assertEntries(leaderboard.top(1), "1 alice 300");
+        assertEntries(leaderboard.top(3), "1 alice 300", "2 bob 200", "2 carol 200");
+        assertEquals(4, leaderboard.top(100).size());
+    }
+
+    @Test
+    void committedReportsMoveUsersUp() {
+        when(userRepository.findScoresByUsernameIn(anyCollection()))
+                .thenReturn(Collections.singletonList(score("dave", 400)));
+        leaderboard.onReportsCommitted(commit("dave"));
+
+        assertEntries(leaderboard.top(4), "1 dave 400", "2 alice 300", "3 bob 200", "3 carol 200");
+        assertEquals(1, leaderboard.rank("dave").getRank());
+        assertEquals(2, leaderboard.rank("alice").getRank());
+    }
+
+    @Test
+    void repeatedCommitsDoNotCountTwice() {
+        when(userRepository.findScoresByUsernameIn(anyCollection()))
+                .thenReturn(Collections.singletonList(score("bob", 300)));
+        leaderboard.onReportsCommitted(commit("bob"));
+        leaderboard.onReportsCommitted(commit("bob"));
+
+        assertEquals(300, leaderboard.rank("bob").getPoints());
+        assertEquals(1, leaderboard.rank("bob").getRank());
+    }
+
+    @Test
+    void staleRebuildKeepsNewerPoints() {
+        when(userRepository.findScoresByUsernameIn(anyCollection()))
+                .thenReturn(Collections.singletonList(score("dave", 500)));
+        leaderboard.onReportsCommitted(commit("dave"));
+
+        // Snapshot read before dave's report committed
+        leaderboard.rebuild();
+
+        assertEquals(500, leaderboard.rank("dave").getPoints());
+        assertEquals(4, leaderboard.top(100).size());
+    }
+
+    @Test
+    void registeredUsersStartUnranked() {
+        assertNull(leaderboard.rank("erin"));
+
+        leaderboard.onUserRegistered(new UserRegisteredEvent("erin", false));
+        assertEquals(5, leaderboard.rank("erin").getRank());
+        assertEquals(0, leaderboard.rank("erin").getPoints());
+
+        // Registration never resets points already known
+        leaderboard.onUserRegistered(new UserRegisteredEvent("alice", true));
+        assertEquals(300, leaderboard.rank("alice").getPoints());
+    }
+
+    private static ReportsCommittedEvent commit(String username) {
+        return new ReportsCommittedEvent(Collections.emptyList(), Collections.singletonList(username), 0);
+    }
+
+    private static void assertEntries(List<LeaderboardEntry> entries, String... expected) {
+        List<String> actual = new ArrayList<>();
+        for (LeaderboardEntry entry : entries) {
+            actual.add(entry.getRank() + " " + entry.getUsername() + " " + entry.getPoints());
+        }
+        assertEquals(Arrays.asList(expected), actual);
+    }
+
+    private static UserScore score(String username, int points) {
+        return new UserScore() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public int getPoints() {
+                return points;
+            }
+        };
+    }
+}